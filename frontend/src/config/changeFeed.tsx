@@ -0,0 +1,93 @@
+import {apiUrl} from "@/config/api.tsx";
+
+export type ChangeEvent = {
+    entity: "soldier" | "task";
+    action: "created" | "updated" | "deleted" | "assigned" | "imported" | "purged" | "archived";
+    id?: number;
+    data?: any;
+};
+
+const POLL_INTERVAL_MS = 15_000;
+
+// Minimal STOMP 1.2 client over a plain WebSocket; we only ever subscribe to one topic.
+// Pushes only come from the instance this socket landed on, so pages pair it with pollChanges.
+export const subscribeToChanges = (onEvent: (event: ChangeEvent) => void): (() => void) => {
+    const url = new URL(apiUrl("/ws"), window.location.href);
+    url.protocol = url.protocol === "https:" ? "wss:" : "ws:";
+
+    const socket = new WebSocket(url.toString());
+
+    socket.onopen = () => {
+        socket.send("CONNECT\naccept-version:1.2\nheart-beat:0,0\n\n\0");
+    };
+
+    socket.onmessage = (message) => {
+        const frames = String(message.data).split("\0");
+        for (const frame of frames) {
+            const trimmed = frame.replace(/^\n+/, "");
+            if (trimmed.startsWith("CONNECTED")) {
+                socket.send("SUBSCRIBE\nid:changes\ndestination:/topic/changes\n\n\0");
+            } else if (trimmed.startsWith("MESSAGE")) {
+                const body = trimmed.substring(trimmed.indexOf("\n\n") + 2);
+                try {
+                    onEvent(JSON.parse(body));
+                } catch (e) {
+                    console.error("Invalid change event:", e);
+                }
+            }
+        }
+    };
+
+    return () => socket.close();
+};
+
+// Catches what the socket misses: writes made through other instances, and anything sent while it
+// was down. Asks the list endpoint for changes since the last version seen and replays them as
+// events; one already applied from the socket just applies again to the same result.
+export const pollChanges = (path: string, entity: ChangeEvent["entity"], version: number | undefined,
+                            onEvent: (event: ChangeEvent) => void): (() => void) => {
+    if (version === undefined) return () => {};
+    let since = version;
+    let stopped = false;
+
+    const poll = async () => {
+        try {
+            const res = await fetch(apiUrl(`${path}?since=${since}`));
+            if (!res.ok || stopped) return;
+            const delta: { version: number; changed: { id: number }[]; deleted: number[] } = await res.json();
+            if (stopped) return;
+            delta.changed.forEach(item => onEvent({entity, action: "updated", id: item.id, data: item}));
+            delta.deleted.forEach(id => onEvent({entity, action: "deleted", id}));
+            since = delta.version;
+        } catch (e) {
+            console.error("Polling for changes failed:", e);
+        }
+    };
+
+    const timer = window.setInterval(poll, POLL_INTERVAL_MS);
+    return () => {
+        stopped = true;
+        window.clearInterval(timer);
+    };
+};
+
+// Applies a change event to a list keyed by id
+export const applyChange = <T extends { id?: number }>(items: T[], event: ChangeEvent, entity: ChangeEvent["entity"]): T[] => {
+    if (event.entity !== entity) return items;
+    if (event.action === "deleted") {
+        return items.filter(item => item.id !== event.id);
+    }
+    if (event.action === "purged" || event.action === "archived") {
+        const purged = new Set(event.data as number[]);
+        return items.filter(item => !purged.has(item.id as number));
+    }
+    if (!event.data) return items;
+    if (event.action === "imported") {
+        // One event per bulk write, carrying every record it created
+        const known = new Set(items.map(item => item.id));
+        return [...items, ...(event.data as T[]).filter(item => !known.has(item.id))];
+    }
+    return items.some(item => item.id === event.id)
+        ? items.map(item => item.id === event.id ? {...item, ...event.data} : item)
+        : [...items, event.data];
+};
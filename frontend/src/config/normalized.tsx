@@ -0,0 +1,31 @@
+import type {Soldier} from "@/type/Soldier.tsx";
+import type {Task} from "@/type/Task.tsx";
+
+// Each soldier and task once; assignments as [taskId, soldierId] pairs
+export const NORMALIZED_JSON = "application/vnd.troops.normalized+json";
+
+export type NormalizedRoster = {
+    soldiers: Soldier[];
+    tasks: Task[];
+    assignments: [number, number][];
+};
+
+// The version comes from the weak ETag, e.g. W/"42-n", and seeds pollChanges
+export const fetchNormalized = async (url: string): Promise<NormalizedRoster & {version?: number}> => {
+    const res = await fetch(url, {headers: {Accept: NORMALIZED_JSON}});
+    const version = res.headers.get("ETag")?.match(/^W\/"(\d+)/)?.[1];
+    return {...await res.json(), version: version === undefined ? undefined : Number(version)};
+};
+
+// Rebuilds the nested task list the pages work with
+export const tasksOf = (roster: NormalizedRoster): Task[] => {
+    const soldiers = new Map(roster.soldiers.map(soldier => [soldier.id, soldier]));
+    const assigned = new Map<number, Soldier[]>();
+    for (const [taskId, soldierId] of roster.assignments) {
+        const soldier = soldiers.get(soldierId);
+        if (!soldier) continue;
+        const list = assigned.get(taskId);
+        if (list) list.push(soldier); else assigned.set(taskId, [soldier]);
+    }
+    return roster.tasks.map(task => ({...task, assigned: assigned.get(task.id as number) ?? []}));
+};
@@ -21,12 +21,15 @@ const CalendarPage = () => {
     const [loading, setLoading] = useState(true);
 
     useEffect(() => {
-        fetchTasks();
-    }, []);
+        fetchTasks(currentDate);
+    }, [currentDate.getFullYear(), currentDate.getMonth()]);
 
-    const fetchTasks = async () => {
+    const fetchTasks = async (date: Date) => {
+        // Only load tasks overlapping the visible month
+        const from = new Date(date.getFullYear(), date.getMonth(), 1).toISOString();
+        const to = new Date(date.getFullYear(), date.getMonth() + 1, 1).toISOString();
         try {
-            const res = await fetch(apiUrl("/api/task/tasks"));
+            const res = await fetch(apiUrl(`/api/task/calendar?from=${encodeURIComponent(from)}&to=${encodeURIComponent(to)}`));
             const data = await res.json();
             setTasks(data);
         } catch (e) {
@@ -6,6 +6,8 @@ import SoldierAdd from "@/components/soldier/SoldierAdd.tsx";
 import {useUser} from "@/provider/UserProvider.tsx";
 import {UserRoundMinus} from "lucide-react";
 import {apiUrl} from "@/config/api.tsx";
+import {applyChange, pollChanges, subscribeToChanges} from "@/config/changeFeed.tsx";
+import {fetchNormalized} from "@/config/normalized.tsx";
 
 const PlatoonPage = () => {
     const {isLoggedIn} = useAuth();
@@ -15,11 +17,16 @@ const PlatoonPage = () => {
 
 
     useEffect(() => {
+        let stopPolling = () => {};
+        let unmounted = false;
         const fetchSoldiers = async () => {
             try {
-                const res = await fetch(apiUrl("/api/soldier/soldiers"))
-                const data = await res.json();
-                setSoldiers(data)
+                // The page only shows soldiers, so the normalized shape spares it every task
+                const roster = await fetchNormalized(apiUrl("/api/soldier/soldiers"));
+                if (unmounted) return;
+                setSoldiers(roster.soldiers)
+                stopPolling = pollChanges("/api/soldier/soldiers", "soldier", roster.version,
+                    event => setSoldiers(prev => applyChange(prev, event, "soldier")));
             } catch (e) {
                 console.log("Error fetching widgets:", e)
             } finally {
@@ -28,8 +35,15 @@ const PlatoonPage = () => {
         }
 
         fetchSoldiers();
+        return () => {
+            unmounted = true;
+            stopPolling();
+        };
     }, []);
 
+    // Patch the list from pushed changes instead of re-downloading it
+    useEffect(() => subscribeToChanges(event => setSoldiers(prev => applyChange(prev, event, "soldier"))), []);
+
     async function handleAddSoldier(newSoldier: Soldier) {
         if (!user) {
             console.error("No user logged in");
@@ -52,17 +66,9 @@ const PlatoonPage = () => {
                 return;
             }
 
-            const text = await res.text();
-            if (text) {
-                const createdSoldier = JSON.parse(text);
-                setSoldiers(prev => [...prev, createdSoldier]);
-                alert("Soldier added successfully!");
-            } else {
-                console.warn("Empty response from server; refreshing list...");
-                const refreshRes = await fetch("http://localhost:8080/api/soldier/soldiers");
-                const allSoldiers = await refreshRes.json();
-                setSoldiers(allSoldiers);
-            }
+            const createdSoldier = await res.json();
+            setSoldiers(prev => applyChange(prev, {entity: "soldier", action: "created", id: createdSoldier.id, data: createdSoldier}, "soldier"));
+            alert("Soldier added successfully!");
 
         } catch (err) {
             console.log("Error adding soldier: ", err);
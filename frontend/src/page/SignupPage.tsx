@@ -21,7 +21,7 @@ const SignupPage = () => {
     const [isValid, setIsValid] = useState(false);
     const navigate = useNavigate();
 
-    const validateForm = async () => {
+    const validateForm = async (signal?: AbortSignal) => {
         if (!username.trim()) {
             setFeedback("");
             setIsValid(false);
@@ -29,7 +29,8 @@ const SignupPage = () => {
         } else {
             try {
                 const res = await fetch(
-                    apiUrl(`/api/user/findProfile?username=${encodeURIComponent(username)}`)
+                    apiUrl(`/api/user/findProfile?username=${encodeURIComponent(username)}`),
+                    {signal}
                 );
                 const data = await res.json();
 
@@ -40,6 +41,7 @@ const SignupPage = () => {
                     setFeedback("Username is available");
                 }
             } catch (err) {
+                if (signal?.aborted) return;
                 console.error("Error checking username", err);
                 setFeedback("Error checking username");
                 setIsValid(false);
@@ -112,8 +114,14 @@ const SignupPage = () => {
         }
     }
 
+    // Only check once typing pauses, and drop answers for names that have since changed
     useEffect(() => {
-        validateForm();
+        const controller = new AbortController();
+        const timer = setTimeout(() => validateForm(controller.signal), 300);
+        return () => {
+            clearTimeout(timer);
+            controller.abort();
+        };
     }, [username]);
 
     return (
@@ -6,6 +6,8 @@ import TaskCard from "@/components/task/TaskCard.tsx";
 import type {Task} from "@/type/Task.tsx";
 import { CalendarX2 } from "lucide-react";
 import {apiUrl} from "@/config/api.tsx";
+import {applyChange, pollChanges, subscribeToChanges} from "@/config/changeFeed.tsx";
+import {fetchNormalized, tasksOf} from "@/config/normalized.tsx";
 
 const TaskPage = () => {
     const {isLoggedIn} = useAuth();
@@ -14,11 +16,15 @@ const TaskPage = () => {
     const [loading, setLoading] = useState(true);
 
     useEffect(() => {
+        let stopPolling = () => {};
+        let unmounted = false;
         const fetchTasks = async () => {
             try {
-                const res = await fetch(apiUrl("/api/task/tasks"))
-                const data = await res.json();
-                setTasks(data)
+                const roster = await fetchNormalized(apiUrl("/api/task/tasks"));
+                if (unmounted) return;
+                setTasks(tasksOf(roster))
+                stopPolling = pollChanges("/api/task/tasks", "task", roster.version,
+                    event => setTasks(prev => applyChange(prev, event, "task")));
             } catch (e) {
                 console.log("Error fetching widgets:", e)
             } finally {
@@ -27,8 +33,15 @@ const TaskPage = () => {
         }
 
         fetchTasks();
+        return () => {
+            unmounted = true;
+            stopPolling();
+        };
     }, []);
 
+    // Patch the list from pushed changes instead of re-downloading it
+    useEffect(() => subscribeToChanges(event => setTasks(prev => applyChange(prev, event, "task"))), []);
+
     async function handleAddTask(newTask: Task) {
         if (!user) {
             console.error("No user logged in");
@@ -51,17 +64,9 @@ const TaskPage = () => {
                 return;
             }
 
-            const text = await res.text();
-            if (text) {
-                const createdTask = JSON.parse(text);
-                setTasks(prev => [...prev, createdTask]);
-                alert("Task added successfully!");
-            } else {
-                console.warn("Empty response from server; refreshing list...");
-                const refreshRes = await fetch("http://localhost:8080/api/task/tasks");
-                const allTasks = await refreshRes.json();
-                setTasks(allTasks);
-            }
+            const createdTask = await res.json();
+            setTasks(prev => applyChange(prev, {entity: "task", action: "created", id: createdTask.id, data: createdTask}, "task"));
+            alert("Task added successfully!");
 
         } catch (err) {
             console.log("Error adding task: ", err);
@@ -0,0 +1,101 @@
+package kong.com.troopsto.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.model.Soldier;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full availability pass over a synthetic roster, through {@link SoldierService} with the roster
+ * cache and schedule index warm, against the original nested loop over string timestamps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AvailabilityBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int soldiers;
+
+    @Param({"20"})
+    public int tasksPerSoldier;
+
+    private SoldierService soldierService;
+    private String taskStart;
+    private String taskEnd;
+    private String[][][] legacySchedules;
+    private String legacyStart;
+    private String legacyEnd;
+
+    @Setup
+    public void setUp() {
+        List<AssignmentRow> rows = BenchmarkFixtures.assignments(soldiers, tasksPerSoldier, 42);
+        List<Soldier> roster = BenchmarkFixtures.soldiers(soldiers);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SoldierRepository soldierRepository = BenchmarkFixtures.soldierRepository(roster);
+        // Nothing writes during the run, so the version the index checks against never moves
+        ChangeVersionService changeVersionService = new ChangeVersionService(null, null) {
+            @Override
+            public long currentFromDatabase() {
+                return 0;
+            }
+        };
+        TaskRepository taskRepository = BenchmarkFixtures.taskRepository(rows);
+        ScheduleIndex scheduleIndex = new ScheduleIndex(taskRepository, soldierRepository,
+                changeVersionService, Duration.ofDays(1));
+        RosterCache rosterCache = new RosterCache(soldierRepository, changeVersionService, meterRegistry, soldiers, Duration.ofDays(1));
+        soldierService = new SoldierService(soldierRepository, taskRepository, scheduleIndex, rosterCache, event -> { },
+                changeVersionService, new SchedulingMetrics(meterRegistry), null);
+
+        taskStart = BenchmarkFixtures.QUERY_START.toString();
+        taskEnd = BenchmarkFixtures.QUERY_END.toString();
+        // Warm the roster cache and the index so the measurement is the steady-state request
+        soldierService.getAvailableSoldiers(taskStart, taskEnd, null);
+
+        legacySchedules = new String[soldiers][][];
+        for (int i = 0; i < soldiers; i++) {
+            legacySchedules[i] = BenchmarkFixtures.legacyStrings(
+                    rows.subList(i * tasksPerSoldier, (i + 1) * tasksPerSoldier));
+        }
+        legacyStart = BenchmarkFixtures.legacyString(BenchmarkFixtures.QUERY_START);
+        legacyEnd = BenchmarkFixtures.legacyString(BenchmarkFixtures.QUERY_END);
+    }
+
+    @Benchmark
+    public List<SoldierSummary> availableSoldiers() {
+        return soldierService.getAvailableSoldiers(taskStart, taskEnd, null);
+    }
+
+    @Benchmark
+    public List<Integer> legacyAvailableSoldiers() {
+        List<Integer> available = new ArrayList<>();
+        for (int i = 0; i < legacySchedules.length; i++) {
+            boolean conflict = false;
+            for (String[] task : legacySchedules[i]) {
+                if (BenchmarkFixtures.legacyOverlaps(legacyStart, legacyEnd, task[0], task[1])) {
+                    conflict = true;
+                }
+            }
+            if (!conflict) {
+                available.add(i);
+            }
+        }
+        return available;
+    }
+}
@@ -0,0 +1,119 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.model.Soldier;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import kong.com.troopsto.service.ScheduleIndex.ScheduledTask;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic rosters and schedules for the benchmarks. Everything is seeded, so two runs on the
+ * same machine see the same data.
+ */
+final class BenchmarkFixtures {
+    static final Instant WINDOW_START = Instant.parse("2025-01-01T00:00:00Z");
+    static final Duration WINDOW = Duration.ofDays(30);
+
+    /** A four hour query slot in the middle of the generated window. */
+    static final Instant QUERY_START = WINDOW_START.plus(Duration.ofDays(15)).plusSeconds(9 * 3600);
+    static final Instant QUERY_END = QUERY_START.plusSeconds(4 * 3600);
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<AssignmentRow> assignments(int soldiers, int tasksPerSoldier, long seed) {
+        Random random = new Random(seed);
+        List<AssignmentRow> rows = new ArrayList<>(soldiers * tasksPerSoldier);
+        long taskId = 1;
+        for (long soldierId = 1; soldierId <= soldiers; soldierId++) {
+            for (int i = 0; i < tasksPerSoldier; i++) {
+                Instant start = WINDOW_START.plusSeconds(random.nextLong(WINDOW.toSeconds()));
+                Instant end = start.plusSeconds(3600L * (1 + random.nextInt(8)));
+                rows.add(new AssignmentRow(soldierId, taskId, "Task " + taskId, start, end));
+                taskId++;
+            }
+        }
+        return rows;
+    }
+
+    static List<ScheduledTask> schedule(List<AssignmentRow> rows) {
+        List<ScheduledTask> tasks = new ArrayList<>(rows.size());
+        for (AssignmentRow row : rows) {
+            tasks.add(new ScheduledTask(row.taskId(), row.taskName(),
+                    row.start().toEpochMilli(), row.end().toEpochMilli()));
+        }
+        return tasks;
+    }
+
+    static List<Soldier> soldiers(int count) {
+        List<Soldier> soldiers = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Soldier soldier = new Soldier();
+            soldier.setId(id);
+            soldier.setFirstName("First" + id);
+            soldier.setLastName("Last" + id);
+            soldier.setSquad("Squad " + (id % 4));
+            soldier.setTeam("Team " + (id % 2));
+            soldiers.add(soldier);
+        }
+        return soldiers;
+    }
+
+    /** Start/end pairs in the local, string form the schedule used to be stored and compared in. */
+    static String[][] legacyStrings(List<AssignmentRow> rows) {
+        String[][] strings = new String[rows.size()][];
+        for (int i = 0; i < rows.size(); i++) {
+            strings[i] = new String[]{legacyString(rows.get(i).start()), legacyString(rows.get(i).end())};
+        }
+        return strings;
+    }
+
+    static String legacyString(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toString();
+    }
+
+    /** The overlap check as it was before the index: parse all four strings on every comparison. */
+    static boolean legacyOverlaps(String start1, String end1, String start2, String end2) {
+        LocalDateTime s1 = LocalDateTime.parse(start1);
+        LocalDateTime e1 = LocalDateTime.parse(end1);
+        LocalDateTime s2 = LocalDateTime.parse(start2);
+        LocalDateTime e2 = LocalDateTime.parse(end2);
+        return s1.isBefore(e2) && s2.isBefore(e1);
+    }
+
+    static TaskRepository taskRepository(List<AssignmentRow> assignments) {
+        return stub(TaskRepository.class, Map.of("findAllAssignments", assignments, "findAllExceptions", List.of()));
+    }
+
+    static SoldierRepository soldierRepository(List<Soldier> soldiers) {
+        return stub(SoldierRepository.class, Map.of("findAll", soldiers, "findAllWithTasks", soldiers));
+    }
+
+    /** Repository stand-in that answers the given finders and fails loudly on anything else. */
+    private static <T> T stub(Class<T> type, Map<String, Object> results) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, invoked, args) -> {
+            if (results.containsKey(invoked.getName())) {
+                return results.get(invoked.getName());
+            }
+            if (invoked.getDeclaringClass() == Object.class) {
+                return switch (invoked.getName()) {
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> type.getSimpleName() + " stub";
+                };
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + invoked.getName());
+        });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,68 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.service.ScheduleIndex.ScheduledTask;
+import kong.com.troopsto.service.ScheduleIndex.SoldierSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conflict check for one soldier against a schedule of {@code tasks} entries: the interval index
+ * against the original linear scan over string timestamps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConflictCheckBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int tasks;
+
+    private SoldierSchedule schedule;
+    private String[][] legacySchedule;
+    private long start;
+    private long end;
+    private String legacyStart;
+    private String legacyEnd;
+
+    @Setup
+    public void setUp() {
+        List<AssignmentRow> rows = BenchmarkFixtures.assignments(1, tasks, 42);
+        schedule = new SoldierSchedule(BenchmarkFixtures.schedule(rows));
+        legacySchedule = BenchmarkFixtures.legacyStrings(rows);
+        start = BenchmarkFixtures.QUERY_START.toEpochMilli();
+        end = BenchmarkFixtures.QUERY_END.toEpochMilli();
+        legacyStart = BenchmarkFixtures.legacyString(BenchmarkFixtures.QUERY_START);
+        legacyEnd = BenchmarkFixtures.legacyString(BenchmarkFixtures.QUERY_END);
+    }
+
+    @Benchmark
+    public boolean indexIsFree() {
+        return schedule.isFree(start, end, null);
+    }
+
+    @Benchmark
+    public List<ScheduledTask> indexConflicts() {
+        return schedule.conflicts(start, end, null);
+    }
+
+    @Benchmark
+    public boolean legacyScan() {
+        boolean conflict = false;
+        for (String[] task : legacySchedule) {
+            if (BenchmarkFixtures.legacyOverlaps(legacyStart, legacyEnd, task[0], task[1])) {
+                conflict = true;
+            }
+        }
+        return conflict;
+    }
+}
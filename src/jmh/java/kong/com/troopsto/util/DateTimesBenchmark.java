@@ -0,0 +1,39 @@
+package kong.com.troopsto.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateTimesBenchmark {
+
+    private String utc = "2025-03-14T09:30:00Z";
+    private String local = "2025-03-14T09:30:00";
+    private long start1 = 1_741_944_600_000L;
+    private long end1 = start1 + 4 * 3_600_000L;
+    private long start2 = start1 + 3 * 3_600_000L;
+    private long end2 = start2 + 2 * 3_600_000L;
+
+    @Benchmark
+    public Instant parseUtc() {
+        return DateTimes.parse(utc);
+    }
+
+    @Benchmark
+    public Instant parseLocal() {
+        return DateTimes.parse(local);
+    }
+
+    @Benchmark
+    public boolean overlaps() {
+        return DateTimes.overlaps(start1, end1, start2, end2);
+    }
+}
@@ -0,0 +1,74 @@
+package kong.com.troopsto.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects raw latencies per operation; percentiles are computed exactly from the sorted samples
+ * once the run is over.
+ */
+class LatencyRecorder {
+    private final Map<String, Samples> byOperation = new TreeMap<>();
+
+    synchronized void record(String operation, long nanos, int status) {
+        byOperation.computeIfAbsent(operation, name -> new Samples()).add(nanos, status);
+    }
+
+    synchronized String report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder out = new StringBuilder(String.format("%-14s %8s %8s %8s %9s %8s %8s %8s %8s %8s%n",
+                "operation", "count", "errors", "409", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Samples all = new Samples();
+        byOperation.forEach((operation, samples) -> {
+            out.append(samples.line(operation, seconds));
+            all.addAll(samples);
+        });
+        out.append(all.line("TOTAL", seconds));
+        return out.toString();
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private int errors;
+        private int conflicts;
+
+        void add(long latency, int status) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latency;
+            if (status == 409) {
+                conflicts++;
+            } else if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.nanos[i], 200);
+            }
+            errors += other.errors;
+            conflicts += other.conflicts;
+        }
+
+        String line(String operation, double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return String.format("%-14s %8d %8d %8d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    operation, size, errors, conflicts, size / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), size == 0 ? 0 : sorted[size - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
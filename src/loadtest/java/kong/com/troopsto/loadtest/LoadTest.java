@@ -0,0 +1,166 @@
+package kong.com.troopsto.loadtest;
+
+import kong.com.troopsto.TroopsToApplication;
+import kong.com.troopsto.service.RosterCache;
+import kong.com.troopsto.service.ScheduleIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application on its embedded H2 fallback, seeds a synthetic roster and drives mixed
+ * concurrent HTTP traffic against the real controllers, then prints per-operation latency
+ * percentiles and throughput.
+ * <p>
+ * Run with {@code ./gradlew loadTest -PloadTestArgs="--soldiers=10000 --concurrency=64"}; see
+ * {@link LoadTestOptions} for the options and their defaults.
+ */
+public class LoadTest {
+
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final String baseUrl;
+    private final SyntheticRoster roster;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private volatile boolean measuring;
+
+    LoadTest(LoadTestOptions options, int port, SyntheticRoster roster) {
+        this.options = options;
+        this.roster = roster;
+        this.baseUrl = "http://localhost:" + port + "/api";
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if (System.getenv("DATABASE_URL") != null) {
+            throw new IllegalStateException("DATABASE_URL is set; the load test only runs against the embedded H2 database");
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TroopsToApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off", "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN", "logging.level.kong.com.troopsto=WARN")
+                .run();
+        try {
+            SyntheticRoster roster = new SyntheticRoster(context.getBean(JdbcTemplate.class), options.seed());
+            long seedStart = System.nanoTime();
+            roster.seed(options, context.getBean(PasswordEncoder.class).encode(SyntheticRoster.PASSWORD));
+            // Seeding bypassed the services, so drop anything they may have loaded already
+            context.getBean(RosterCache.class).invalidateAll();
+            context.getBean(ScheduleIndex.class).rebuild();
+            System.out.printf("Seeded %d soldiers, %d tasks, %d users in %d ms%n", options.soldiers(), options.tasks(),
+                    options.users(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            new LoadTest(options, port, roster).run();
+        } finally {
+            context.close();
+        }
+    }
+
+    void run() throws Exception {
+        System.out.printf("Running %d clients: %s warm-up, %s measured, mix %s%n",
+                options.concurrency(), options.warmup(), options.duration(), options.mix());
+
+        long measureFrom = System.nanoTime() + options.warmup().toNanos();
+        long deadline = measureFrom + options.duration().toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < options.concurrency(); i++) {
+                running.add(clients.submit(() -> drive(deadline)));
+            }
+            while (System.nanoTime() < measureFrom) {
+                Thread.sleep(50);
+            }
+            measuring = true;
+            for (Future<?> client : running) {
+                client.get();
+            }
+        }
+
+        System.out.println();
+        System.out.print(recorder.report(options.duration().toNanos()));
+    }
+
+    private void drive(long deadline) {
+        while (System.nanoTime() < deadline) {
+            int pick = ThreadLocalRandom.current().nextInt(options.mix().total());
+            LoadTestOptions.Mix mix = options.mix();
+            if ((pick -= mix.list()) < 0) {
+                boolean soldiers = ThreadLocalRandom.current().nextBoolean();
+                send(soldiers ? "list-soldiers" : "list-tasks",
+                        get(soldiers ? "/soldier/soldiers" : "/task/tasks"));
+            } else if ((pick -= mix.availability()) < 0) {
+                Instant start = randomStart();
+                send("availability", get("/soldier/available?taskStart=" + start
+                        + "&taskEnd=" + start.plus(Duration.ofHours(4))));
+            } else if ((pick -= mix.assign()) < 0) {
+                long taskId = 1 + ThreadLocalRandom.current().nextInt(Math.max(1, options.tasks()));
+                long soldierId = 1 + ThreadLocalRandom.current().nextInt(Math.max(1, options.soldiers()));
+                send("assign", post("/task/" + taskId + "/assign", "[" + soldierId + "]"));
+            } else if ((pick -= mix.create()) < 0) {
+                Instant start = randomStart();
+                send("create", post("/task/new_task", "{\"name\":\"Load test task\",\"description\":\"Created under load\","
+                        + "\"start\":\"" + start + "\",\"end\":\"" + start.plus(Duration.ofHours(2)) + "\"}"));
+            } else {
+                String username = SyntheticRoster.username(1 + ThreadLocalRandom.current().nextInt(options.users()));
+                send("login", post("/user/profile",
+                        "{\"username\":\"" + username + "\",\"password\":\"" + SyntheticRoster.PASSWORD + "\"}"));
+            }
+        }
+    }
+
+    private Instant randomStart() {
+        return roster.windowStart().plusSeconds(ThreadLocalRandom.current().nextLong(SyntheticRoster.WINDOW.toSeconds()));
+    }
+
+    private void send(String operation, HttpRequest request) {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (measuring) {
+            recorder.record(operation, System.nanoTime() - start, status);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
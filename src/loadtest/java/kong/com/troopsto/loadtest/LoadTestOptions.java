@@ -0,0 +1,70 @@
+package kong.com.troopsto.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}. Unknown names are rejected so a typo does
+ * not silently run with the default.
+ */
+record LoadTestOptions(int soldiers, int tasks, int assignmentsPerTask, int users, int concurrency,
+                       Duration warmup, Duration duration, long seed, Mix mix) {
+
+    /** Relative weights of each operation in the generated traffic. */
+    record Mix(int list, int availability, int assign, int create, int login) {
+        int total() {
+            return list + availability + assign + create + login;
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>(Map.ofEntries(
+                Map.entry("soldiers", "2000"),
+                Map.entry("tasks", "5000"),
+                Map.entry("assignments-per-task", "3"),
+                Map.entry("users", "50"),
+                Map.entry("concurrency", "32"),
+                Map.entry("warmup", "15s"),
+                Map.entry("duration", "60s"),
+                Map.entry("seed", "42"),
+                Map.entry("mix", "40,30,10,10,10")));
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: " + name);
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+
+        String[] weights = values.get("mix").split(",");
+        if (weights.length != 5) {
+            throw new IllegalArgumentException("--mix takes five weights: list,availability,assign,create,login");
+        }
+        Mix mix = new Mix(Integer.parseInt(weights[0].trim()), Integer.parseInt(weights[1].trim()),
+                Integer.parseInt(weights[2].trim()), Integer.parseInt(weights[3].trim()),
+                Integer.parseInt(weights[4].trim()));
+        if (mix.total() <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one positive weight");
+        }
+
+        return new LoadTestOptions(
+                Integer.parseInt(values.get("soldiers")),
+                Integer.parseInt(values.get("tasks")),
+                Integer.parseInt(values.get("assignments-per-task")),
+                Math.max(1, Integer.parseInt(values.get("users"))),
+                Integer.parseInt(values.get("concurrency")),
+                duration(values.get("warmup")),
+                duration(values.get("duration")),
+                Long.parseLong(values.get("seed")),
+                mix);
+    }
+
+    private static Duration duration(String value) {
+        // Accepts the same short form as application.yaml, e.g. 30s or 2m
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+}
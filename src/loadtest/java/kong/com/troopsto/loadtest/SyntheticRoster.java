@@ -0,0 +1,98 @@
+package kong.com.troopsto.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeds soldiers, tasks, assignments and login profiles straight through JDBC, so setting up a
+ * large roster does not itself go through the code under test.
+ */
+class SyntheticRoster {
+    static final String PASSWORD = "loadtest-password";
+    static final Duration WINDOW = Duration.ofDays(60);
+
+    private static final String[] RANKS = {"PVT", "PFC", "SPC", "CPL", "SGT", "SSG", "SFC", "2LT", "1LT", "CPT"};
+    private static final String[] ROLES = {"Rifleman", "Grenadier", "Medic", "RTO", "Team Leader", "Squad Leader"};
+    private static final int BATCH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+    private final Instant windowStart = Instant.now().truncatedTo(ChronoUnit.DAYS);
+
+    SyntheticRoster(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    Instant windowStart() {
+        return windowStart;
+    }
+
+    void seed(LoadTestOptions options, String passwordHash) {
+        List<Object[]> soldiers = new ArrayList<>();
+        for (int i = 1; i <= options.soldiers(); i++) {
+            soldiers.add(new Object[]{(long) i, "First" + i, "Last" + i, RANKS[random.nextInt(RANKS.length)],
+                    "Squad " + (1 + random.nextInt(8)), "Team " + (1 + random.nextInt(2)),
+                    ROLES[random.nextInt(ROLES.length)]});
+        }
+        // Ids come from pooled sequences, so they are set explicitly to match the loop counters
+        // and each sequence is moved past them for rows created during the run
+        batch("INSERT INTO soldier (id, first_name, last_name, rank, squad, team, role) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                soldiers);
+        jdbcTemplate.execute("ALTER SEQUENCE soldier_seq RESTART WITH " + (options.soldiers() + 50L));
+
+        List<Object[]> tasks = new ArrayList<>();
+        for (int i = 1; i <= options.tasks(); i++) {
+            Instant start = randomStart();
+            Instant end = start.plus(1 + random.nextInt(8), ChronoUnit.HOURS);
+            tasks.add(new Object[]{(long) i, "Task " + i, "Synthetic task", "Load test", "Range " + (1 + random.nextInt(20)),
+                    Timestamp.from(start), Timestamp.from(end), Timestamp.from(end)});
+        }
+        batch("INSERT INTO task (id, name, description, reason, location, start_at, end_at, series_end_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", tasks);
+        jdbcTemplate.execute("ALTER SEQUENCE task_seq RESTART WITH " + (options.tasks() + 50L));
+
+        // Overlapping assignments are allowed here just as they were historically
+        List<Object[]> assignments = new ArrayList<>();
+        for (long taskId = 1; taskId <= options.tasks(); taskId++) {
+            Set<Long> picked = new HashSet<>();
+            int count = Math.min(options.assignmentsPerTask(), options.soldiers());
+            while (picked.size() < count) {
+                picked.add(1L + random.nextInt(options.soldiers()));
+            }
+            for (Long soldierId : picked) {
+                assignments.add(new Object[]{soldierId, taskId});
+            }
+        }
+        batch("INSERT INTO task_soldier (soldier_id, task_id) VALUES (?, ?)", assignments);
+
+        List<Object[]> profiles = new ArrayList<>();
+        for (int i = 1; i <= options.users(); i++) {
+            profiles.add(new Object[]{username(i), passwordHash, "USER"});
+        }
+        batch("INSERT INTO profile (username, password, role) VALUES (?, ?, ?)", profiles);
+    }
+
+    private Instant randomStart() {
+        return windowStart.plusSeconds(random.nextLong(WINDOW.toSeconds()));
+    }
+
+    static String username(int i) {
+        return "loadtest-user-" + i;
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH)));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Moves a table's ids from an identity column to a sequence so Hibernate can hand out ids in
+ * blocks and batch the inserts. Done in Java because the sequence has to start past the ids
+ * already in use, and the column default is spelled differently on H2 and PostgreSQL.
+ * <p>
+ * The sequence steps by the entity's allocation size. Hibernate's pooled optimizer treats each
+ * value as the top of a block, so the first value is {@code max(id) + allocationSize}; plain JDBC
+ * inserts still get an id from the column default and land on a value no block will ever cover.
+ */
+final class IdSequences {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    private IdSequences() {
+    }
+
+    static void replaceIdentity(Context context, String table, String sequence) throws SQLException {
+        Connection connection = context.getConnection();
+        boolean postgres = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres");
+
+        try (Statement statement = connection.createStatement()) {
+            long maxId = 0;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                if (rs.next()) {
+                    maxId = rs.getLong(1);
+                }
+            }
+
+            statement.execute("CREATE SEQUENCE " + sequence + " START WITH " + (maxId + ALLOCATION_SIZE)
+                    + " INCREMENT BY " + ALLOCATION_SIZE);
+            statement.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY");
+            statement.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT "
+                    + (postgres ? "nextval('" + sequence + "')" : "NEXT VALUE FOR " + sequence));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+
+/** Task ids come from {@code task_seq}, see {@link IdSequences}. */
+public class V10__taskIdSequence extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        IdSequences.replaceIdentity(context, "task", "task_seq");
+    }
+}
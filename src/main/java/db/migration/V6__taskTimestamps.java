@@ -0,0 +1,71 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Moves task times from strings to {@code timestamptz} columns. The strings are read the way the
+ * application parsed them: an ISO instant when they end in {@code Z}, otherwise a local date-time
+ * in the JVM's zone. A SQL cast would read local times in the database session's zone, and an
+ * {@code AT TIME ZONE} would drop the offset of the {@code Z} strings, so the rows are converted
+ * here, with the zone pinned to the one the application used.
+ */
+public class V6__taskTimestamps extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        migrate(context, ZoneId.systemDefault());
+    }
+
+    static void migrate(Context context, ZoneId zone) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE task ADD start_at TIMESTAMP WITH TIME ZONE");
+            statement.execute("ALTER TABLE task ADD end_at TIMESTAMP WITH TIME ZONE");
+
+            try (ResultSet rs = statement.executeQuery("SELECT id, start_time, end_time FROM task");
+                 PreparedStatement update = connection.prepareStatement(
+                         "UPDATE task SET start_at = ?, end_at = ? WHERE id = ?")) {
+                while (rs.next()) {
+                    long id = rs.getLong(1);
+                    update.setObject(1, toTimestamp(id, rs.getString(2), zone), Types.TIMESTAMP_WITH_TIMEZONE);
+                    update.setObject(2, toTimestamp(id, rs.getString(3), zone), Types.TIMESTAMP_WITH_TIMEZONE);
+                    update.setLong(3, id);
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+
+            statement.execute("ALTER TABLE task DROP COLUMN end_time");
+            statement.execute("ALTER TABLE task DROP COLUMN start_time");
+            statement.execute("CREATE INDEX idx_task_start_end ON task (start_at, end_at)");
+            statement.execute("CREATE INDEX idx_task_soldier_task ON task_soldier (task_id)");
+        }
+    }
+
+    // Same rules as DateTimes.parse at the time of this migration; an empty string means no time
+    static OffsetDateTime toTimestamp(long taskId, String value, ZoneId zone) throws SQLException {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            Instant instant = value.endsWith("Z") ? Instant.parse(value) : LocalDateTime.parse(value).atZone(zone).toInstant();
+            return instant.atOffset(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            throw new SQLException("Task " + taskId + " has an unreadable time: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+
+/** Soldier ids come from {@code soldier_seq}, see {@link IdSequences}. */
+public class V9__soldierIdSequence extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        IdSequences.replaceIdentity(context, "soldier", "soldier_seq");
+    }
+}
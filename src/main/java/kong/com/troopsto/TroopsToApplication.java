@@ -2,8 +2,10 @@ package kong.com.troopsto;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TroopsToApplication {
 
     public static void main(String[] args) {
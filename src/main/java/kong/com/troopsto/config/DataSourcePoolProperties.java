@@ -0,0 +1,22 @@
+package kong.com.troopsto.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection pool tuning, bound from {@code troops.datasource.pool.*}. A leak detection
+ * threshold of zero disables it. The statement cache settings only apply to PostgreSQL.
+ */
+@ConfigurationProperties("troops.datasource.pool")
+public record DataSourcePoolProperties(
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("2") int minimumIdle,
+        @DefaultValue("3s") Duration connectionTimeout,
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue("30m") Duration maxLifetime,
+        @DefaultValue("0s") Duration leakDetectionThreshold,
+        @DefaultValue("256") int statementCacheSize,
+        @DefaultValue("5") int prepareThreshold) {
+}
@@ -1,54 +1,177 @@
 package kong.com.troopsto.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties({DataSourcePoolProperties.class, ReplicaProperties.class})
 public class DatabaseConfig {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseConfig.class);
 
     @Bean
-    public DataSource dataSource() {
-        String databaseUrl = System.getenv("DATABASE_URL");
+    public DataSource dataSource(DataSourcePoolProperties pool, ReplicaProperties replica,
+                                ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = primaryDataSource(pool);
+        if (!replica.enabled()) {
+            return primary;
+        }
 
-        System.out.println("DATABASE_URL present: " + (databaseUrl != null));
+        log.info("Routing read-only transactions to the replica pool");
+        HikariDataSource replicaPool = connect(replica.url(), pool);
+        configurePool(replicaPool, pool, ReplicaRoutingDataSource.REPLICA);
+        replicaPool.setMaximumPoolSize(replica.maximumPoolSize());
+        replicaPool.setMinimumIdle(replica.minimumIdle());
 
-        if (databaseUrl != null && databaseUrl.startsWith("postgres://")) {
-            try {
-                URI dbUri = new URI(databaseUrl);
+        // Behind the routing proxy Boot only finds the primary pool, so both get hikaricp.* meters here
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicaPool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        });
 
-                String username = dbUri.getUserInfo().split(":")[0];
-                String password = dbUri.getUserInfo().split(":")[1];
-                String jdbcUrl = "jdbc:postgresql://" + dbUri.getHost() + ':' + dbUri.getPort() + dbUri.getPath();
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primary,
+                ReplicaRoutingDataSource.REPLICA, replicaPool));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
 
-                if (dbUri.getQuery() != null) {
-                    jdbcUrl += "?" + dbUri.getQuery();
+    /**
+     * Pins a client's reads to the primary for a short window after it writes, through a cookie
+     * so the pin holds whichever instance serves the next request.
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> readYourWritesFilter(ReplicaProperties replica) {
+        long windowMillis = replica.readYourWrites().toMillis();
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                long now = System.currentTimeMillis();
+                ReadYourWrites.begin(pinnedUntil(request) > now, () -> {
+                    Cookie cookie = new Cookie(ReadYourWrites.COOKIE, Long.toString(now + windowMillis));
+                    cookie.setPath("/");
+                    cookie.setHttpOnly(true);
+                    cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+                    cookie.setAttribute("SameSite", "Lax");
+                    response.addCookie(cookie);
+                });
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    ReadYourWrites.end();
                 }
+            }
 
-                System.out.println("Connecting to PostgreSQL: " + dbUri.getHost());
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return !replica.enabled() || windowMillis <= 0;
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
 
-                return DataSourceBuilder
-                        .create()
-                        .url(jdbcUrl)
-                        .username(username)
-                        .password(password)
-                        .build();
-            } catch (URISyntaxException e) {
-                throw new RuntimeException("Error parsing DATABASE_URL", e);
+    private static long pinnedUntil(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (ReadYourWrites.COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
             }
         }
+        return 0;
+    }
+
+    private static HikariDataSource primaryDataSource(DataSourcePoolProperties pool) {
+        String databaseUrl = System.getenv("DATABASE_URL");
+
+        log.info("DATABASE_URL present: {}", databaseUrl != null);
+
+        if (databaseUrl != null && databaseUrl.startsWith("postgres://")) {
+            return configurePool(connect(databaseUrl, pool), pool, ReplicaRoutingDataSource.PRIMARY);
+        }
 
         // Fallback to H2 for local development
-        System.out.println("Using H2 database (local development)");
-        return DataSourceBuilder.create()
-                .url("jdbc:h2:mem:testdb")
-                .username("sa")
-                .password("")
-                .driverClassName("org.h2.Driver")
-                .build();
+        log.info("Using H2 database (local development)");
+        return configurePool(connect("jdbc:h2:mem:testdb", pool), pool, ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    private static HikariDataSource connect(String url, DataSourcePoolProperties pool) {
+        if (url.startsWith("jdbc:")) {
+            // Plain JDBC URLs are for local runs, e.g. a second in-memory H2 standing in for a replica
+            return DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .username("sa")
+                    .password("")
+                    .build();
+        }
+        try {
+            URI dbUri = new URI(url);
+
+            String username = dbUri.getUserInfo().split(":")[0];
+            String password = dbUri.getUserInfo().split(":")[1];
+            String jdbcUrl = "jdbc:postgresql://" + dbUri.getHost() + ':' + dbUri.getPort() + dbUri.getPath();
+
+            if (dbUri.getQuery() != null) {
+                jdbcUrl += "?" + dbUri.getQuery();
+            }
+
+            log.info("Connecting to PostgreSQL: {}", dbUri.getHost());
+
+            HikariDataSource dataSource = DataSourceBuilder
+                    .create()
+                    .type(HikariDataSource.class)
+                    .url(jdbcUrl)
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.addDataSourceProperty("preparedStatementCacheQueries", pool.statementCacheSize());
+            dataSource.addDataSourceProperty("prepareThreshold", pool.prepareThreshold());
+            return dataSource;
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("Error parsing DATABASE_URL", e);
+        }
+    }
+
+    private static HikariDataSource configurePool(HikariDataSource dataSource, DataSourcePoolProperties pool, String poolName) {
+        // The pool name tags the hikaricp.* meters (active, pending, acquire time, usage)
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(pool.maximumPoolSize());
+        dataSource.setMinimumIdle(pool.minimumIdle());
+        dataSource.setConnectionTimeout(pool.connectionTimeout().toMillis());
+        dataSource.setIdleTimeout(pool.idleTimeout().toMillis());
+        dataSource.setMaxLifetime(pool.maxLifetime().toMillis());
+        dataSource.setLeakDetectionThreshold(pool.leakDetectionThreshold().toMillis());
+        return dataSource;
     }
-}
\ No newline at end of file
+}
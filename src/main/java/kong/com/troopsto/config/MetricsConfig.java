@@ -0,0 +1,60 @@
+package kong.com.troopsto.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Per-request SQL statement counts. Session-factory wide Hibernate statistics (entity loads,
+ * collection fetches, query counts) come from the {@code hibernate.*} meters that Boot binds when
+ * {@code hibernate.generate_statistics} is on; this adds the per-request view on top.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private final StatementCounter statementCounter = new StatementCounter();
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> statementCountFilter(MeterRegistry meterRegistry) {
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                StatementCounter.begin();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    int statements = StatementCounter.end();
+                    // Route template rather than raw path keeps the tag cardinality bounded
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    DistributionSummary.builder("http.server.requests.sql.statements")
+                            .description("SQL statements prepared while handling a request")
+                            .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry)
+                            .record(statements);
+                }
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
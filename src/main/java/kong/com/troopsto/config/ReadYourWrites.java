@@ -0,0 +1,49 @@
+package kong.com.troopsto.config;
+
+/**
+ * Per-request read-your-writes state for replica routing. Reads stay on the primary for the rest
+ * of a request once it has written, and for requests that arrive with the pin cookie set by an
+ * earlier write, so a client never reads back something older than what it just saved.
+ */
+public final class ReadYourWrites {
+
+    static final String COOKIE = "troops_primary_until";
+
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    static void begin(boolean pinned, Runnable onFirstWrite) {
+        STATE.set(new State(pinned, onFirstWrite));
+    }
+
+    static void end() {
+        STATE.remove();
+    }
+
+    static boolean pinned() {
+        State state = STATE.get();
+        return state != null && state.pinned;
+    }
+
+    static void wrote() {
+        State state = STATE.get();
+        if (state != null && !state.wrote) {
+            state.wrote = true;
+            state.pinned = true;
+            state.onFirstWrite.run();
+        }
+    }
+
+    private static final class State {
+        boolean pinned;
+        boolean wrote;
+        final Runnable onFirstWrite;
+
+        State(boolean pinned, Runnable onFirstWrite) {
+            this.pinned = pinned;
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+}
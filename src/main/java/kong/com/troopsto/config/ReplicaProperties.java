@@ -0,0 +1,23 @@
+package kong.com.troopsto.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Optional read replica, bound from {@code troops.datasource.replica.*}. The URL takes the same
+ * {@code postgres://} form as {@code DATABASE_URL} or a plain JDBC URL; when it is empty every
+ * query goes to the primary. Timeouts and statement caching follow the primary pool settings.
+ */
+@ConfigurationProperties("troops.datasource.replica")
+public record ReplicaProperties(
+        @DefaultValue("") String url,
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("2") int minimumIdle,
+        @DefaultValue("5s") Duration readYourWrites) {
+
+    public boolean enabled() {
+        return url != null && !url.isBlank();
+    }
+}
@@ -0,0 +1,27 @@
+package kong.com.troopsto.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. The key is
+ * read when a physical connection is first needed, which is why {@link DatabaseConfig} wraps this
+ * in a lazy proxy: by then the transaction's read-only flag has been set.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWrites.pinned()) {
+            return REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReadYourWrites.wrote();
+        }
+        return PRIMARY;
+    }
+}
@@ -1,21 +1,44 @@
 package kong.com.troopsto.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import kong.com.troopsto.dto.NormalizedRoster;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Also the origins allowed to open the change feed socket, see WebSocketConfig
+    static final String[] ALLOWED_ORIGINS = {
+            "http://localhost:5173",  // Local development
+            "https://your-frontend-url.fly.dev"  // Production frontend URL
+    };
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
-                .allowedOrigins(
-                        "http://localhost:5173",  // Local development
-                        "https://your-frontend-url.fly.dev"  // Production frontend URL
-                )
+                .allowedOrigins(ALLOWED_ORIGINS)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                // The list's version, which clients pass back as ?since= when polling for changes
+                .exposedHeaders(HttpHeaders.ETAG)
                 .allowCredentials(true);
     }
-}
\ No newline at end of file
+
+    // Binary encoding for clients that send Accept: application/cbor, with the same Jackson settings as JSON
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        MappingJackson2CborHttpMessageConverter converter =
+                new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+        converter.setSupportedMediaTypes(List.of(MediaType.APPLICATION_CBOR, NormalizedRoster.CBOR));
+        return converter;
+    }
+}
@@ -0,0 +1,34 @@
+package kong.com.troopsto.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+/**
+ * STOMP endpoint for the live change feed.
+ * <p>
+ * The simple broker only reaches clients connected to this instance. Behind a load balancer a
+ * client on another instance never hears about writes made here, so the feed is a latency
+ * shortcut, not the source of truth: clients also poll the list endpoints with {@code ?since=}
+ * and apply whatever the socket missed.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    public static final String CHANGES_TOPIC = "/topic/changes";
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws")
+                .setAllowedOrigins(WebConfig.ALLOWED_ORIGINS);
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic");
+        registry.setApplicationDestinationPrefixes("/app");
+    }
+}
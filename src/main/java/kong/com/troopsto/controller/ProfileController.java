@@ -1,85 +1,103 @@
 package kong.com.troopsto.controller;
 
+import kong.com.troopsto.dto.AuthenticatedUser;
 import kong.com.troopsto.dto.LoginDTO;
 import kong.com.troopsto.model.Profile;
 import kong.com.troopsto.service.ProfileService;
+import kong.com.troopsto.service.TokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("api/user")
 public class ProfileController {
+    private static final Logger log = LoggerFactory.getLogger(ProfileController.class);
 
     public final ProfileService profileService;
-    private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
 
-
-    private final Map<String, Profile> sessions = new ConcurrentHashMap<>();
-
-    public ProfileController(ProfileService profileService, PasswordEncoder passwordEncoder){
+    public ProfileController(ProfileService profileService, TokenService tokenService){
         this.profileService = profileService;
-        this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
     }
 
     @PostMapping("/new_profile")
-    public ResponseEntity<Map<String, Object>> saveNewUser(@RequestBody Profile profile) {
-        Profile savedProfile = profileService.registerUser(profile);
-
-        System.out.println("User saved with ID: " + savedProfile.getId());
-
-        return ResponseEntity.ok(Map.of(
-                "message", "User created successfully",
-                "userId", savedProfile.getId(),
-                "username", savedProfile.getUsername()
-        ));
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> saveNewUser(@RequestBody Profile profile) {
+        return profileService.registerUser(profile).thenApply(savedProfile -> {
+            return ResponseEntity.ok(Map.<String, Object>of(
+                    "message", "User created successfully",
+                    "userId", savedProfile.getId(),
+                    "username", savedProfile.getUsername()
+            ));
+        }).exceptionally(ProfileController::unavailableOrRethrow);
     }
 
     @GetMapping("/getProfile/{profileId}")
     public ResponseEntity<Profile> getProfile(@PathVariable("profileId") Long profileId) {
-        System.out.println("Fetching profile with ID: " + profileId);
-
         Profile profile = profileService.findById(profileId);
 
         if (profile == null) {
-            System.out.println("Profile not found for ID: " + profileId);
+            log.debug("Profile not found for ID: {}", profileId);
             return ResponseEntity.notFound().build();
         }
 
-        System.out.println("Found profile: " + profile.getUsername());
         return ResponseEntity.ok(profile);
     }
 
     @GetMapping("/findProfile")
-    public Map<String, Boolean> findUser(@RequestParam String username) {
-        Boolean exists = profileService.existsByUsername(username);
-        return Map.of("exists", exists);
+    public ResponseEntity<Map<String, Boolean>> findUser(@RequestParam String username) {
+        boolean exists = profileService.existsByUsername(username);
+        // A taken name stays taken, while a free one can be claimed at any moment
+        CacheControl cacheControl = exists
+                ? CacheControl.maxAge(Duration.ofHours(1)).cachePrivate()
+                : CacheControl.maxAge(Duration.ofSeconds(10)).cachePrivate();
+        return ResponseEntity.ok().cacheControl(cacheControl).body(Map.of("exists", exists));
     }
 
     @PostMapping("/profile")
-    public ResponseEntity<Map<String, Serializable>> login(@RequestBody LoginDTO login) {
-        Profile profile =  profileService.findProfileByName(login.username());
-
-        if (profile == null || !passwordEncoder.matches(login.password(), profile.getPassword())) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
-
-        String sessionId = UUID.randomUUID().toString();
-        sessions.put(sessionId, profile);
-
-        return ResponseEntity.ok(Map.of("sessionId", sessionId, "username", profile.getUsername(), "userId", profile.getId()));
+    public CompletableFuture<ResponseEntity<Map<String, Serializable>>> login(@RequestBody LoginDTO login) {
+        return profileService.authenticate(login.username(), login.password()).thenApply(authenticated -> {
+            if (authenticated.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).<Map<String, Serializable>>build();
+            }
+            Profile profile = authenticated.get();
+
+            // The signed token is returned as sessionId so existing clients keep working
+            String token = tokenService.issue(profile);
+
+            return ResponseEntity.ok(Map.<String, Serializable>of(
+                    "sessionId", token, "username", profile.getUsername(), "userId", profile.getId()));
+        }).exceptionally(ProfileController::unavailableOrRethrow);
     }
 
     @GetMapping("/me")
-    public ResponseEntity<Profile> me(@RequestHeader("X-Session-Id") String sessionId) {
-        Profile profile = sessions.get(sessionId);
-        if (profile == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        return ResponseEntity.ok(profile);
+    public ResponseEntity<AuthenticatedUser> me(@AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(user);
+    }
+
+    private static <T> ResponseEntity<T> unavailableOrRethrow(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            // Hashing pool is saturated; tell the client to back off instead of queueing forever
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new CompletionException(cause);
     }
 }
\ No newline at end of file
@@ -1,16 +1,37 @@
 package kong.com.troopsto.controller;
 
+import kong.com.troopsto.dto.AuditEntry;
+import kong.com.troopsto.dto.NormalizedRoster;
+import kong.com.troopsto.dto.PageSlice;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.dto.SoldierView;
+import kong.com.troopsto.dto.Versioned;
 import kong.com.troopsto.model.Soldier;
-import kong.com.troopsto.model.Task;
+import kong.com.troopsto.service.ChangeVersionService;
+import kong.com.troopsto.service.ManningHeatmapService;
+import kong.com.troopsto.service.ScheduleIndex.ScheduledTask;
+import kong.com.troopsto.service.SchedulingMetrics;
+import kong.com.troopsto.service.SoldierImportService;
 import kong.com.troopsto.service.SoldierService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,10 +40,22 @@ import java.util.Map;
 @RestController
 @RequestMapping("api/soldier")
 public class SoldierController {
-    public final SoldierService soldierService;
+    private static final Logger log = LoggerFactory.getLogger(SoldierController.class);
 
-    public SoldierController(SoldierService soldierService){
+    public final SoldierService soldierService;
+    public final ChangeVersionService changeVersionService;
+    public final SchedulingMetrics schedulingMetrics;
+    public final ManningHeatmapService manningHeatmapService;
+    public final SoldierImportService soldierImportService;
+
+    public SoldierController(SoldierService soldierService, ChangeVersionService changeVersionService,
+                             SchedulingMetrics schedulingMetrics, ManningHeatmapService manningHeatmapService,
+                             SoldierImportService soldierImportService){
         this.soldierService = soldierService;
+        this.changeVersionService = changeVersionService;
+        this.schedulingMetrics = schedulingMetrics;
+        this.manningHeatmapService = manningHeatmapService;
+        this.soldierImportService = soldierImportService;
     }
 
     @PostMapping("/new_soldier")
@@ -30,10 +63,77 @@ public class SoldierController {
         return soldierService.saveNewSoldier(soldier);
     }
 
+    // The body is read as a stream, so uploads of any size never sit in memory whole
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/jsonl"})
+    public ResponseEntity<?> importSoldiers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader reader = new InputStreamReader(body, charset)) {
+            if (contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+                return ResponseEntity.ok(soldierImportService.importCsv(reader));
+            }
+            return ResponseEntity.ok(soldierImportService.importJsonLines(reader));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            log.warn("Soldier import aborted: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Upload interrupted: " + e.getMessage()));
+        }
+    }
 
+    /**
+     * The roster, nested by default. Clients that send {@code Accept: }{@value NormalizedRoster#JSON_VALUE}
+     * or {@value NormalizedRoster#CBOR_VALUE} get each task once and assignments as id pairs
+     * instead; delta sync keeps the nested shape.
+     */
     @GetMapping("/soldiers")
-    public List<Soldier> findAll() {
-        return soldierService.getAllSoldiers();
+    public ResponseEntity<?> findAll(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long since,
+            WebRequest request) {
+        if (since != null) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(soldierService.getSoldierChangesSince(since));
+        }
+
+        boolean normalized = NormalizedRoster.isRequested(request.getHeader(HttpHeaders.ACCEPT));
+        String variant = normalized ? NormalizedRoster.ETAG_VARIANT : null;
+
+        if (after == null && limit == null) {
+            // The cached list carries the version it was loaded at, so the tag never runs ahead of it
+            Versioned<List<SoldierView>> views = soldierService.getSoldierViews();
+            String etag = ChangeVersionService.etag(views.version(), variant);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(normalized ? NormalizedRoster.ofSoldiers(views.value()) : views.value());
+        }
+
+        // Any write bumps the version, so an unchanged tag lets the client keep what it has
+        if (request.checkNotModified(ChangeVersionService.etag(changeVersionService.currentFromDatabase(), variant))) {
+            return null;
+        }
+
+        // A page may come from a replica, so it is tagged with the version it was actually read at
+        Versioned<PageSlice<SoldierView>> page = changeVersionService.readVersioned(
+                () -> soldierService.getSoldierPage(after, PageSlice.clampLimit(limit)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(ChangeVersionService.etag(page.version(), variant))
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        if (page.value().nextCursor() != null) {
+            response.header(PageSlice.NEXT_CURSOR_HEADER, page.value().nextCursor().toString());
+        }
+        List<SoldierView> items = page.value().items();
+        return response.body(normalized ? NormalizedRoster.ofSoldiers(items) : items);
     }
 
     @GetMapping("/soldiers/{lastname}")
@@ -46,24 +146,28 @@ public class SoldierController {
         soldierService.deleteSoldier(id);
     }
 
+    @GetMapping("/{id}/history")
+    public List<AuditEntry> getHistory(@PathVariable Long id, @RequestParam(defaultValue = "100") int limit) {
+        return soldierService.getHistory(id, limit);
+    }
+
     @GetMapping("/{id}/check-conflict")
     public ResponseEntity<?> checkConflict(
             @PathVariable Long id,
             @RequestParam String taskStart,
-            @RequestParam String taskEnd) {
+            @RequestParam String taskEnd,
+            @RequestParam(required = false) Long excludeTaskId) {
         try {
             Soldier soldier = soldierService.getSoldierById(id)
                     .orElseThrow(() -> new IllegalArgumentException("Soldier not found"));
 
-            boolean hasConflict = soldierService.hasConflict(soldier, taskStart, taskEnd);
-
+            // Most checks find nothing; only a conflict pays for listing what it is
+            boolean hasConflict = soldierService.hasConflict(soldier, taskStart, taskEnd, excludeTaskId);
             List<String> conflictingTasks = new ArrayList<>();
             if (hasConflict) {
-                for (Task task : soldier.getTasks()) {
-                    if (timesOverlap(taskStart, taskEnd, task.getStart(), task.getEnd())) {
-                        conflictingTasks.add(task.getName() + " (" +
-                                formatDateTime(task.getStart()) + " - " + formatDateTime(task.getEnd()) + ")");
-                    }
+                for (ScheduledTask task : soldierService.findConflicts(id, taskStart, taskEnd, excludeTaskId)) {
+                    conflictingTasks.add(task.name() + " (" +
+                            formatDateTime(task.start()) + " - " + formatDateTime(task.end()) + ")");
                 }
             }
 
@@ -73,7 +177,7 @@ public class SoldierController {
                     "conflictingTasks", conflictingTasks
             ));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.debug("Conflict check failed for soldier {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
@@ -84,74 +188,44 @@ public class SoldierController {
             @RequestParam String taskEnd,
             @RequestParam(required = false) Long excludeTaskId) {
         try {
-            List<Soldier> allSoldiers = soldierService.getAllSoldiers();
             List<Map<String, Object>> availableSoldiers = new ArrayList<>();
 
-            for (Soldier soldier : allSoldiers) {
-                boolean hasConflict = false;
-                List<String> conflictingTasks = new ArrayList<>();
-
-                for (Task task : soldier.getTasks()) {
-                    // Skip the current task if we're editing
-                    if (excludeTaskId != null && task.getId().equals(excludeTaskId)) {
-                        continue;
-                    }
-
-                    if (timesOverlap(taskStart, taskEnd, task.getStart(), task.getEnd())) {
-                        hasConflict = true;
-                        conflictingTasks.add(task.getName());
-                    }
-                }
-
-                // Only include soldiers without conflicts
-                if (!hasConflict) {
-                    Map<String, Object> soldierInfo = new HashMap<>();
-                    soldierInfo.put("id", soldier.getId());
-                    soldierInfo.put("firstName", soldier.getFirstName());
-                    soldierInfo.put("lastName", soldier.getLastName());
-                    soldierInfo.put("rank", soldier.getRank());
-                    soldierInfo.put("squad", soldier.getSquad());
-                    soldierInfo.put("team", soldier.getTeam());
-                    soldierInfo.put("role", soldier.getRole());
-                    availableSoldiers.add(soldierInfo);
-                }
+            List<SoldierSummary> available = schedulingMetrics.time(SchedulingMetrics.AVAILABILITY,
+                    () -> soldierService.getAvailableSoldiers(taskStart, taskEnd, excludeTaskId));
+            for (SoldierSummary soldier : available) {
+                Map<String, Object> soldierInfo = new HashMap<>();
+                soldierInfo.put("id", soldier.id());
+                soldierInfo.put("firstName", soldier.firstName());
+                soldierInfo.put("lastName", soldier.lastName());
+                soldierInfo.put("rank", soldier.rank());
+                soldierInfo.put("squad", soldier.squad());
+                soldierInfo.put("team", soldier.team());
+                soldierInfo.put("role", soldier.role());
+                availableSoldiers.add(soldierInfo);
             }
 
             return ResponseEntity.ok(availableSoldiers);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.debug("Availability lookup failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
-    private boolean timesOverlap(String start1, String end1, String start2, String end2) {
-        LocalDateTime s1 = parseDateTime(start1);
-        LocalDateTime e1 = parseDateTime(end1);
-        LocalDateTime s2 = parseDateTime(start2);
-        LocalDateTime e2 = parseDateTime(end2);
-        return s1.isBefore(e2) && s2.isBefore(e1);
-    }
-
-    private LocalDateTime parseDateTime(String dateTimeStr) {
+    @GetMapping("/heatmap")
+    public ResponseEntity<?> getManningHeatmap(
+            @RequestParam String from,
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "squad") String groupBy) {
         try {
-            // Try parsing as ISO 8601 with Z (UTC)
-            if (dateTimeStr.endsWith("Z")) {
-                Instant instant = Instant.parse(dateTimeStr);
-                return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-            }
-            // Try parsing as LocalDateTime
-            return LocalDateTime.parse(dateTimeStr);
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid date format: " + dateTimeStr);
+            return ResponseEntity.ok(schedulingMetrics.time(SchedulingMetrics.HEATMAP,
+                    () -> manningHeatmapService.heatmap(from, days, groupBy)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
-    private String formatDateTime(String dateTimeStr) {
-        try {
-            LocalDateTime dt = parseDateTime(dateTimeStr);
-            return dt.format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm"));
-        } catch (Exception e) {
-            return dateTimeStr;
-        }
+    private String formatDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+                .format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm"));
     }
 }
@@ -1,15 +1,31 @@
 package kong.com.troopsto.controller;
 
 
+import kong.com.troopsto.dto.NormalizedRoster;
+import kong.com.troopsto.dto.PageSlice;
+import kong.com.troopsto.dto.StaffingPlan;
+import kong.com.troopsto.dto.StaffingRequest;
+import kong.com.troopsto.dto.TaskView;
+import kong.com.troopsto.dto.Versioned;
 import kong.com.troopsto.model.Profile;
 import kong.com.troopsto.model.Soldier;
 import kong.com.troopsto.model.Task;
+import kong.com.troopsto.service.AssignmentConflictException;
+import kong.com.troopsto.service.ChangeVersionService;
 import kong.com.troopsto.service.ProfileService;
+import kong.com.troopsto.service.SchedulingMetrics;
 import kong.com.troopsto.service.SoldierService;
+import kong.com.troopsto.service.StaffingSolver;
+import kong.com.troopsto.service.TaskArchiveService;
 import kong.com.troopsto.service.TaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -19,39 +35,127 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("api/task")
 public class TaskController {
+    private static final Logger log = LoggerFactory.getLogger(TaskController.class);
+
     public final TaskService taskService;
     public final ProfileService profileService;
     public final SoldierService soldierService;
+    public final ChangeVersionService changeVersionService;
+    public final SchedulingMetrics schedulingMetrics;
+    public final StaffingSolver staffingSolver;
+    public final TaskArchiveService taskArchiveService;
 
-    public TaskController(TaskService taskService, ProfileService profileService, SoldierService soldierService){
+    public TaskController(TaskService taskService, ProfileService profileService, SoldierService soldierService,
+                          ChangeVersionService changeVersionService, SchedulingMetrics schedulingMetrics,
+                          StaffingSolver staffingSolver, TaskArchiveService taskArchiveService){
         this.taskService = taskService;
         this.profileService = profileService;
         this.soldierService = soldierService;
+        this.changeVersionService = changeVersionService;
+        this.schedulingMetrics = schedulingMetrics;
+        this.staffingSolver = staffingSolver;
+        this.taskArchiveService = taskArchiveService;
     }
 
     @PostMapping("/new_task")
     public ResponseEntity<?> createTask(@RequestBody Task task) {
         try {
-            System.out.println("=== Received Task Data ===");
-            System.out.println("Name: " + task.getName());
-            System.out.println("Start: " + task.getStart());
-            System.out.println("End: " + task.getEnd());
-            System.out.println("Created: " + task.getCreated());
-            System.out.println("Assigned: " + (task.getAssigned() != null ? task.getAssigned().size() : "null"));
+            log.debug("Received task name={} start={} end={} assigned={}", task.getName(), task.getStart(),
+                    task.getEnd(), task.getAssigned() != null ? task.getAssigned().size() : null);
 
             Task savedTask = taskService.saveNewTask(task);
             return ResponseEntity.ok(savedTask);
+        } catch (AssignmentConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "conflicts", e.getConflicts()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            System.err.println("=== ERROR CREATING TASK ===");
-            e.printStackTrace();
+            log.error("Failed to create task", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", e.getMessage(), "type", e.getClass().getName()));
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> createTasks(@RequestBody List<Task> tasks) {
+        try {
+            return ResponseEntity.ok(taskService.createTasks(tasks));
+        } catch (AssignmentConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "conflicts", e.getConflicts()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * The task list, nested by default. Clients that send {@code Accept: }{@value NormalizedRoster#JSON_VALUE}
+     * or {@value NormalizedRoster#CBOR_VALUE} get each soldier once and assignments as id pairs
+     * instead; delta sync keeps the nested shape.
+     */
     @GetMapping("/tasks")
-    public List<Task> findAll() {
-        return taskService.findAll();
+    public ResponseEntity<?> findAll(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long since,
+            WebRequest request) {
+        if (since != null) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(taskService.getTaskChangesSince(since));
+        }
+
+        boolean normalized = NormalizedRoster.isRequested(request.getHeader(HttpHeaders.ACCEPT));
+        String variant = normalized ? NormalizedRoster.ETAG_VARIANT : null;
+
+        // Any write bumps the version, so an unchanged tag lets the client keep what it has
+        String etag = ChangeVersionService.etag(changeVersionService.currentFromDatabase(), variant);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        // The list may come from a replica, so it is tagged with the version it was actually read at
+        if (after == null && limit == null) {
+            Versioned<List<TaskView>> views = changeVersionService.readVersioned(taskService::getTaskViews);
+            return ResponseEntity.ok()
+                    .eTag(ChangeVersionService.etag(views.version(), variant))
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(normalized ? NormalizedRoster.ofTasks(views.value()) : views.value());
+        }
+
+        Versioned<PageSlice<TaskView>> page = changeVersionService.readVersioned(
+                () -> taskService.getTaskPage(after, PageSlice.clampLimit(limit)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(ChangeVersionService.etag(page.version(), variant))
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        if (page.value().nextCursor() != null) {
+            response.header(PageSlice.NEXT_CURSOR_HEADER, page.value().nextCursor().toString());
+        }
+        List<TaskView> items = page.value().items();
+        return response.body(normalized ? NormalizedRoster.ofTasks(items) : items);
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<?> findForCalendar(@RequestParam String from, @RequestParam String to) {
+        try {
+            return ResponseEntity.ok(taskService.getTasksBetween(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<?> findArchived(@RequestParam String from, @RequestParam String to,
+                                          @RequestParam(required = false) Long soldierId) {
+        try {
+            return ResponseEntity.ok(taskArchiveService.getArchivedBetween(from, to, soldierId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/delete/{id}")
@@ -59,19 +163,53 @@ public class TaskController {
         taskService.deleteTask(id);
     }
 
+    @DeleteMapping("/purge")
+    public ResponseEntity<?> purgeTasks(@RequestParam String endingBefore) {
+        try {
+            return ResponseEntity.ok(Map.of("deleted", taskService.purgeTasksEndingBefore(endingBefore)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/{taskId}/assign")
     public ResponseEntity<?> assignSoldiersToTask(
             @PathVariable Long taskId,
             @RequestBody Set<Long> soldierIds) {
 
         try {
-            Task updatedTask = taskService.assignSoldiers(taskId, soldierIds);
-            return ResponseEntity.ok(updatedTask);
+            Task updatedTask = schedulingMetrics.time(SchedulingMetrics.ASSIGN,
+                    () -> taskService.assignSoldiers(taskId, soldierIds));
+            return ResponseEntity.ok(TaskView.from(updatedTask));
+        } catch (AssignmentConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "conflicts", e.getConflicts()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @PostMapping("/{taskId}/skip")
+    public ResponseEntity<?> skipOccurrence(@PathVariable Long taskId, @RequestParam String occurrence) {
+        try {
+            return ResponseEntity.ok(TaskView.from(taskService.skipOccurrence(taskId, occurrence)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 
-
-}
\ No newline at end of file
+    @PostMapping("/staff")
+    public ResponseEntity<?> staffTasks(@RequestBody StaffingRequest request) {
+        try {
+            StaffingPlan plan = schedulingMetrics.time(SchedulingMetrics.STAFFING,
+                    () -> staffingSolver.plan(request.tasks()));
+            return ResponseEntity.ok(request.commit() ? staffingSolver.commit(plan) : plan);
+        } catch (AssignmentConflictException e) {
+            // Someone else assigned one of the chosen soldiers between planning and commit
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "conflicts", e.getConflicts()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
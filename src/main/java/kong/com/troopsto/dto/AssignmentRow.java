@@ -0,0 +1,18 @@
+package kong.com.troopsto.dto;
+
+import kong.com.troopsto.util.Recurrence;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public record AssignmentRow(Long soldierId, Long taskId, String taskName, Instant start, Instant end,
+                            String recurrence, Instant recurrenceUntil) {
+
+    public AssignmentRow(Long soldierId, Long taskId, String taskName, Instant start, Instant end) {
+        this(soldierId, taskId, taskName, start, end, null, null);
+    }
+
+    public Recurrence occurrences(Collection<Instant> exceptions) {
+        return Recurrence.of(start.toEpochMilli(), end.toEpochMilli(), recurrence, recurrenceUntil, exceptions);
+    }
+}
@@ -0,0 +1,17 @@
+package kong.com.troopsto.dto;
+
+import java.time.Instant;
+
+/**
+ * One line of the assignment audit journal. Ids are kept as plain values, so the history of a
+ * deleted task or soldier stays readable; {@code actor} is null for unauthenticated requests.
+ */
+public record AuditEntry(Instant occurredAt, String action, Long soldierId, Long taskId,
+                         String taskName, String actor) {
+
+    public static final String ASSIGNED = "assigned";
+    public static final String UNASSIGNED = "unassigned";
+    public static final String TASK_DELETED = "task_deleted";
+    public static final String TASK_PURGED = "task_purged";
+    public static final String SOLDIER_DELETED = "soldier_deleted";
+}
@@ -0,0 +1,6 @@
+package kong.com.troopsto.dto;
+
+import kong.com.troopsto.model.Role;
+
+public record AuthenticatedUser(Long id, String username, Role role) {
+}
@@ -0,0 +1,21 @@
+package kong.com.troopsto.dto;
+
+/**
+ * Compact change notification pushed to {@code /topic/changes}. {@code data} carries the new
+ * state for created, updated and assigned events and is null for deletions. Bulk writes send one
+ * event without an id: imported carries the list of records created, purged and archived the list
+ * of ids that left the live tables.
+ */
+public record ChangeEvent(String entity, String action, Long id, Object data) {
+
+    public static final String SOLDIER = "soldier";
+    public static final String TASK = "task";
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String ASSIGNED = "assigned";
+    public static final String IMPORTED = "imported";
+    public static final String PURGED = "purged";
+    public static final String ARCHIVED = "archived";
+}
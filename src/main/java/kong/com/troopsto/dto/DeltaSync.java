@@ -0,0 +1,10 @@
+package kong.com.troopsto.dto;
+
+import java.util.List;
+
+/**
+ * Everything that changed after the client's version: rows created or updated since then, and
+ * ids deleted since then. Pass {@code version} as {@code since} on the next poll.
+ */
+public record DeltaSync<T>(long version, List<T> changed, List<Long> deleted) {
+}
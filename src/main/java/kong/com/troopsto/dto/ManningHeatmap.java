@@ -0,0 +1,14 @@
+package kong.com.troopsto.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Free soldiers per group in consecutive slots starting at {@code from}; {@code free[i]} is the
+ * count for the slot starting {@code i * slotMinutes} minutes after {@code from}.
+ */
+public record ManningHeatmap(Instant from, int slotMinutes, int slots, String groupBy, List<Group> groups) {
+
+    public record Group(String name, int soldiers, int[] free) {
+    }
+}
@@ -0,0 +1,73 @@
+package kong.com.troopsto.dto;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Normalized shape of the soldier and task lists: each soldier and each task appears once, and
+ * assignments are {@code [taskId, soldierId]} pairs. The nested views repeat a task under every
+ * soldier on it (and a soldier under every task), which this shape never does.
+ * <p>
+ * Served when a client asks for {@value #JSON_VALUE} or {@value #CBOR_VALUE}.
+ */
+public record NormalizedRoster(List<SoldierSummary> soldiers, List<TaskSummary> tasks, List<long[]> assignments) {
+
+    public static final String JSON_VALUE = "application/vnd.troops.normalized+json";
+    public static final String CBOR_VALUE = "application/vnd.troops.normalized+cbor";
+    public static final MediaType JSON = MediaType.parseMediaType(JSON_VALUE);
+    public static final MediaType CBOR = MediaType.parseMediaType(CBOR_VALUE);
+    // Keeps the ETag of this shape apart from the nested one at the same version
+    public static final String ETAG_VARIANT = "n";
+
+    /** Whether an Accept header asks for this shape, in either encoding. */
+    public static boolean isRequested(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (JSON.equalsTypeAndSubtype(type) || CBOR.equalsTypeAndSubtype(type)) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    public static NormalizedRoster ofSoldiers(List<SoldierView> views) {
+        List<SoldierSummary> soldiers = new ArrayList<>(views.size());
+        Map<Long, TaskSummary> tasks = new LinkedHashMap<>();
+        List<long[]> assignments = new ArrayList<>();
+        for (SoldierView view : views) {
+            soldiers.add(new SoldierSummary(view.id(), view.firstName(), view.lastName(), view.rank(),
+                    view.squad(), view.team(), view.role()));
+            for (TaskSummary task : view.tasks()) {
+                tasks.putIfAbsent(task.id(), task);
+                assignments.add(new long[]{task.id(), view.id()});
+            }
+        }
+        return new NormalizedRoster(soldiers, List.copyOf(tasks.values()), assignments);
+    }
+
+    public static NormalizedRoster ofTasks(List<TaskView> views) {
+        List<TaskSummary> tasks = new ArrayList<>(views.size());
+        Map<Long, SoldierSummary> soldiers = new LinkedHashMap<>();
+        List<long[]> assignments = new ArrayList<>();
+        for (TaskView view : views) {
+            tasks.add(new TaskSummary(view.id(), view.name(), view.description(), view.reason(), view.location(),
+                    view.created(), view.start(), view.end(), view.recurrence(), view.recurrenceUntil()));
+            for (SoldierSummary soldier : view.assigned()) {
+                soldiers.putIfAbsent(soldier.id(), soldier);
+                assignments.add(new long[]{view.id(), soldier.id()});
+            }
+        }
+        return new NormalizedRoster(List.copyOf(soldiers.values()), tasks, assignments);
+    }
+}
@@ -0,0 +1,32 @@
+package kong.com.troopsto.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is the id to pass as {@code after}
+ * for the following page, or {@code null} when this is the last page.
+ */
+public record PageSlice<T>(List<T> items, Long nextCursor) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Builds a page from ids fetched with one extra row of look-ahead.
+     */
+    public static <T> PageSlice<T> of(List<Long> idsWithLookahead, int limit, Function<List<Long>, List<T>> loader) {
+        boolean hasMore = idsWithLookahead.size() > limit;
+        List<Long> pageIds = hasMore ? idsWithLookahead.subList(0, limit) : idsWithLookahead;
+        List<T> items = pageIds.isEmpty() ? List.of() : loader.apply(pageIds);
+        return new PageSlice<>(items, hasMore ? pageIds.get(pageIds.size() - 1) : null);
+    }
+}
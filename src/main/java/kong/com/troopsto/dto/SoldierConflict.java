@@ -0,0 +1,6 @@
+package kong.com.troopsto.dto;
+
+import java.util.List;
+
+public record SoldierConflict(Long soldierId, String soldierName, List<String> conflictingTasks) {
+}
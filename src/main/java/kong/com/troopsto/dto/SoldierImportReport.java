@@ -0,0 +1,14 @@
+package kong.com.troopsto.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk soldier import. Only the first rejected rows are listed; {@code failed}
+ * always counts all of them.
+ */
+public record SoldierImportReport(int imported, int failed, List<RowError> errors) {
+
+    /** A rejected row, numbered by its line in the uploaded file. */
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,12 @@
+package kong.com.troopsto.dto;
+
+import kong.com.troopsto.model.Soldier;
+
+public record SoldierSummary(Long id, String firstName, String lastName, String rank,
+                             String squad, String team, String role) {
+
+    public static SoldierSummary from(Soldier soldier) {
+        return new SoldierSummary(soldier.getId(), soldier.getFirstName(), soldier.getLastName(),
+                soldier.getRank(), soldier.getSquad(), soldier.getTeam(), soldier.getRole());
+    }
+}
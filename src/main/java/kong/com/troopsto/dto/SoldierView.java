@@ -0,0 +1,23 @@
+package kong.com.troopsto.dto;
+
+import kong.com.troopsto.model.Soldier;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Flat read model for the roster list. Tasks are summaries only, so serializing it never walks
+ * back into {@code Task.assigned}.
+ */
+public record SoldierView(Long id, String firstName, String lastName, String rank,
+                          String squad, String team, String role, List<TaskSummary> tasks) {
+
+    public static SoldierView from(Soldier soldier) {
+        List<TaskSummary> tasks = soldier.getTasks().stream()
+                .map(TaskSummary::from)
+                .sorted(Comparator.comparing(TaskSummary::id))
+                .toList();
+        return new SoldierView(soldier.getId(), soldier.getFirstName(), soldier.getLastName(),
+                soldier.getRank(), soldier.getSquad(), soldier.getTeam(), soldier.getRole(), tasks);
+    }
+}
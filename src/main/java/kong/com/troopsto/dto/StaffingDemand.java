@@ -0,0 +1,16 @@
+package kong.com.troopsto.dto;
+
+/**
+ * Required headcount for one task. The optional squad, role and rank restrict which soldiers
+ * may fill it; soldiers already assigned to the task count toward the headcount.
+ */
+public record StaffingDemand(Long taskId, int headcount, String squad, String role, String rank) {
+
+    public boolean accepts(SoldierSummary soldier) {
+        return matches(squad, soldier.squad()) && matches(role, soldier.role()) && matches(rank, soldier.rank());
+    }
+
+    private static boolean matches(String wanted, String actual) {
+        return wanted == null || wanted.isBlank() || wanted.equalsIgnoreCase(actual);
+    }
+}
@@ -0,0 +1,20 @@
+package kong.com.troopsto.dto;
+
+import java.util.List;
+
+/**
+ * Soldiers chosen for each task, plus the tasks that could not be fully staffed without a
+ * conflict.
+ */
+public record StaffingPlan(List<Staffed> staffed, List<Shortfall> shortfalls, boolean committed) {
+
+    public record Staffed(Long taskId, List<Long> soldierIds) {
+    }
+
+    public record Shortfall(Long taskId, int missing) {
+    }
+
+    public StaffingPlan asCommitted() {
+        return new StaffingPlan(staffed, shortfalls, true);
+    }
+}
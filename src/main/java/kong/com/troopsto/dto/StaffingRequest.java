@@ -0,0 +1,10 @@
+package kong.com.troopsto.dto;
+
+import java.util.List;
+
+/**
+ * A batch of tasks to staff. With {@code commit} false the plan is only returned, so it can be
+ * reviewed before it is applied.
+ */
+public record StaffingRequest(List<StaffingDemand> tasks, boolean commit) {
+}
@@ -0,0 +1,7 @@
+package kong.com.troopsto.dto;
+
+import java.time.Instant;
+
+/** A skipped occurrence of a recurring task. */
+public record TaskException(Long taskId, Instant occurrenceStart) {
+}
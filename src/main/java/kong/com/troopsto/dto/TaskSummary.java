@@ -0,0 +1,15 @@
+package kong.com.troopsto.dto;
+
+import kong.com.troopsto.model.Task;
+
+import java.time.Instant;
+
+public record TaskSummary(Long id, String name, String description, String reason, String location,
+                          String created, Instant start, Instant end, String recurrence, Instant recurrenceUntil) {
+
+    public static TaskSummary from(Task task) {
+        return new TaskSummary(task.getId(), task.getName(), task.getDescription(), task.getReason(),
+                task.getLocation(), task.getCreated(), task.getStart(), task.getEnd(),
+                task.getRecurrence(), task.getRecurrenceUntil());
+    }
+}
@@ -0,0 +1,34 @@
+package kong.com.troopsto.dto;
+
+import kong.com.troopsto.model.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Flat read model for the task list. Assigned soldiers are summaries only, so serializing it
+ * never walks back into {@code Soldier.tasks}.
+ */
+public record TaskView(Long id, String name, String description, String reason, String location,
+                       String created, Instant start, Instant end, String recurrence, Instant recurrenceUntil,
+                       List<SoldierSummary> assigned) {
+
+    public static TaskView from(Task task) {
+        List<SoldierSummary> assigned = task.getAssigned().stream()
+                .map(SoldierSummary::from)
+                .sorted(Comparator.comparing(SoldierSummary::id))
+                .toList();
+        return new TaskView(task.getId(), task.getName(), task.getDescription(), task.getReason(),
+                task.getLocation(), task.getCreated(), task.getStart(), task.getEnd(),
+                task.getRecurrence(), task.getRecurrenceUntil(), assigned);
+    }
+
+    /** The same task moved to one of its occurrences, for calendar views. */
+    public TaskView occurrenceAt(Instant occurrenceStart) {
+        Instant occurrenceEnd = occurrenceStart.plus(Duration.between(start, end));
+        return new TaskView(id, name, description, reason, location, created, occurrenceStart, occurrenceEnd,
+                recurrence, recurrenceUntil, assigned);
+    }
+}
@@ -0,0 +1,5 @@
+package kong.com.troopsto.dto;
+
+/** A read result together with the change version it was read at. */
+public record Versioned<T>(long version, T value) {
+}
@@ -1,5 +1,6 @@
 package kong.com.troopsto.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
@@ -8,8 +9,10 @@ import java.util.Set;
 
 @Entity
 public class Soldier {
+    // Pooled sequence ids let Hibernate batch inserts; see V9__soldierIdSequence
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "soldier_seq")
+    @SequenceGenerator(name = "soldier_seq", sequenceName = "soldier_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -23,6 +26,11 @@ public class Soldier {
     private String team;
     private String role;
 
+    // Written by ChangeVersionService, never by Hibernate
+    @JsonIgnore
+    @Column(name = "change_version", insertable = false, updatable = false)
+    private Long changeVersion;
+
     @ManyToMany(mappedBy = "assigned")
     @JsonIgnoreProperties("assigned")
     private Set<Task> tasks = new HashSet<>();
@@ -91,4 +99,8 @@ public class Soldier {
     public void setTasks(Set<Task> tasks) {
         this.tasks = tasks;
     }
+
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
 }
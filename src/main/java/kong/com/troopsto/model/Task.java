@@ -2,15 +2,22 @@ package kong.com.troopsto.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.persistence.*;
+import kong.com.troopsto.util.FlexibleInstantDeserializer;
+import kong.com.troopsto.util.Recurrence;
+import org.hibernate.annotations.BatchSize;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 public class Task {
+    // Pooled sequence ids let Hibernate batch inserts; see V10__taskIdSequence
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -21,11 +28,39 @@ public class Task {
     private String location;
     private String created;
 
-    @Column(name = "start_time")
-    private String start;
+    @Column(name = "start_at")
+    @JsonDeserialize(using = FlexibleInstantDeserializer.class)
+    private Instant start;
 
-    @Column(name = "end_time")
-    private String end;
+    @Column(name = "end_at")
+    @JsonDeserialize(using = FlexibleInstantDeserializer.class)
+    private Instant end;
+
+    // FREQ=DAILY|WEEKLY|HOURLY[;INTERVAL=n], or null for a one-off task
+    private String recurrence;
+
+    @Column(name = "recurrence_until")
+    @JsonDeserialize(using = FlexibleInstantDeserializer.class)
+    private Instant recurrenceUntil;
+
+    // End of the last occurrence, so SQL can bound a series; null for an open-ended recurring
+    // series, and for legacy one-off tasks saved without an end, which queries tell apart by recurrence
+    @JsonIgnore
+    @Column(name = "series_end_at")
+    private Instant seriesEnd;
+
+    // Starts of skipped occurrences
+    @ElementCollection
+    @CollectionTable(name = "task_exception", joinColumns = @JoinColumn(name = "task_id"))
+    @Column(name = "occurrence_start")
+    @BatchSize(size = 100)
+    @JsonDeserialize(contentUsing = FlexibleInstantDeserializer.class)
+    private Set<Instant> exceptions = new HashSet<>();
+
+    // Written by ChangeVersionService, never by Hibernate
+    @JsonIgnore
+    @Column(name = "change_version", insertable = false, updatable = false)
+    private Long changeVersion;
 
     @ManyToMany
     @JoinTable(
@@ -84,22 +119,76 @@ public class Task {
         this.created = created;
     }
 
-    public String getStart() {
+    public Instant getStart() {
         return start;
     }
 
-    public void setStart(String start) {
+    public void setStart(Instant start) {
         this.start = start;
     }
 
-    public String getEnd() {
+    public Instant getEnd() {
         return end;
     }
 
-    public void setEnd(String end) {
+    public void setEnd(Instant end) {
         this.end = end;
     }
 
+    public String getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(String recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    public Instant getRecurrenceUntil() {
+        return recurrenceUntil;
+    }
+
+    public void setRecurrenceUntil(Instant recurrenceUntil) {
+        this.recurrenceUntil = recurrenceUntil;
+    }
+
+    public Instant getSeriesEnd() {
+        return seriesEnd;
+    }
+
+    public Set<Instant> getExceptions() {
+        if (exceptions == null) {
+            exceptions = new HashSet<>();
+        }
+        return exceptions;
+    }
+
+    public void setExceptions(Set<Instant> exceptions) {
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * Occurrence arithmetic for this task, or {@code null} while it has no complete time window.
+     */
+    public Recurrence occurrences() {
+        if (start == null || end == null) {
+            return null;
+        }
+        return Recurrence.of(start.toEpochMilli(), end.toEpochMilli(), recurrence, recurrenceUntil,
+                recurrence == null ? null : getExceptions());
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateSeriesEnd() {
+        Recurrence occurrences = occurrences();
+        if (occurrences == null) {
+            seriesEnd = end;
+        } else {
+            long last = occurrences.seriesEnd();
+            seriesEnd = last == Long.MAX_VALUE ? null : Instant.ofEpochMilli(last);
+        }
+    }
+
     public Set<Soldier> getAssigned() {
         if (assigned == null) {
             assigned = new HashSet<>();
@@ -111,4 +200,7 @@ public class Task {
         this.assigned = assigned;
     }
 
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
 }
@@ -2,8 +2,13 @@ package kong.com.troopsto.repository;
 
 import kong.com.troopsto.model.Profile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +18,12 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
 
     Boolean existsByUsername(String username);
 
+    @Query("select p.username from Profile p")
+    List<String> findAllUsernames();
+
+    @Modifying
+    @Transactional
+    @Query("update Profile p set p.password = :password where p.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
 }
@@ -1,9 +1,18 @@
 package kong.com.troopsto.repository;
 
+import jakarta.persistence.LockModeType;
+import kong.com.troopsto.dto.AssignmentRow;
 import kong.com.troopsto.model.Soldier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,5 +24,37 @@ public interface SoldierRepository extends JpaRepository<Soldier, Long> {
 
     Optional<Soldier> findSoldierById(Long id);
 
+    // Row locks are taken in id order, so transactions locking overlapping sets cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Soldier s where s.id in :ids order by s.id")
+    List<Soldier> lockAllById(@Param("ids") Collection<Long> ids);
 
-}
\ No newline at end of file
+    @Query("select s from Soldier s left join fetch s.tasks order by s.id")
+    List<Soldier> findAllWithTasks();
+
+    @Query("select s from Soldier s left join fetch s.tasks where s.changeVersion > :since order by s.id")
+    List<Soldier> findChangedSince(@Param("since") long since);
+
+    @Query("select s.id from Soldier s where s.changeVersion > :since order by s.id")
+    List<Long> findIdsChangedSince(@Param("since") long since);
+
+    @Query("select s.id from Soldier s order by s.id")
+    List<Long> findAllIds();
+
+    @Query("select s.id from Soldier s where s.id > :afterId order by s.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select s from Soldier s left join fetch s.tasks where s.id in :ids order by s.id")
+    List<Soldier> findAllWithTasksByIdIn(@Param("ids") Collection<Long> ids);
+
+    // A soldier's tasks whose span meets the window; recurring series still need narrowing to occurrences
+    @Query("select new kong.com.troopsto.dto.AssignmentRow(s.id, t.id, t.name, t.start, t.end, t.recurrence, t.recurrenceUntil) " +
+            "from Soldier s join s.tasks t " +
+            "where s.id = :soldierId and t.id <> :excludeTaskId and t.start < :end " +
+            "and (t.seriesEnd > :start or (t.seriesEnd is null and t.recurrence is not null)) order by t.start, t.id")
+    List<AssignmentRow> findBusyBetween(@Param("soldierId") Long soldierId,
+                                        @Param("start") Instant start,
+                                        @Param("end") Instant end,
+                                        @Param("excludeTaskId") Long excludeTaskId);
+
+}
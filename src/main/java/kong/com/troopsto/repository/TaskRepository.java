@@ -1,14 +1,69 @@
 package kong.com.troopsto.repository;
 
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.TaskException;
 import kong.com.troopsto.model.Task;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * The overlap queries match on the whole span of a recurring series, so for recurring tasks they
+ * return candidates that callers narrow down with {@link kong.com.troopsto.util.Recurrence}.
+ * A null series end only means "never ends" on a recurring task; on a one-off task it means the
+ * task has no end time, and such a task never overlaps anything.
+ */
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> getAllById(long id);
-}
 
+    @Query("select t from Task t left join fetch t.assigned order by t.start, t.id")
+    List<Task> findAllWithAssigned();
+
+    @Query("select t.id from Task t where t.id > :afterId order by t.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select t from Task t left join fetch t.assigned where t.id in :ids order by t.id")
+    List<Task> findAllWithAssignedByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select t from Task t left join fetch t.assigned " +
+            "where t.start < :to and (t.seriesEnd > :from or (t.seriesEnd is null and t.recurrence is not null)) order by t.start, t.id")
+    List<Task> findOverlappingWithAssigned(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select t from Task t left join fetch t.assigned where t.changeVersion > :since order by t.id")
+    List<Task> findChangedSince(@Param("since") long since);
+
+    @Query("select t from Task t left join fetch t.assigned where t.id = :id")
+    Optional<Task> findWithAssignedById(@Param("id") Long id);
+
+    @Query("select new kong.com.troopsto.dto.AssignmentRow(s.id, t.id, t.name, t.start, t.end, t.recurrence, t.recurrenceUntil) " +
+            "from Task t join t.assigned s")
+    List<AssignmentRow> findAllAssignments();
+
+    @Query("select new kong.com.troopsto.dto.AssignmentRow(s.id, t.id, t.name, t.start, t.end, t.recurrence, t.recurrenceUntil) " +
+            "from Task t join t.assigned s where s.id in :soldierIds")
+    List<AssignmentRow> findAssignmentsForSoldiers(@Param("soldierIds") Collection<Long> soldierIds);
+
+    @Query("select new kong.com.troopsto.dto.AssignmentRow(s.id, t.id, t.name, t.start, t.end, t.recurrence, t.recurrenceUntil) " +
+            "from Task t join t.assigned s " +
+            "where s.id in :soldierIds and t.id <> :excludeTaskId and t.start < :end and (t.seriesEnd > :start or (t.seriesEnd is null and t.recurrence is not null))")
+    List<AssignmentRow> findOverlappingAssignments(@Param("soldierIds") Collection<Long> soldierIds,
+                                                   @Param("start") Instant start,
+                                                   @Param("end") Instant end,
+                                                   @Param("excludeTaskId") Long excludeTaskId);
+
+    @Query("select new kong.com.troopsto.dto.TaskException(t.id, e) from Task t join t.exceptions e")
+    List<TaskException> findAllExceptions();
+
+    @Query("select new kong.com.troopsto.dto.TaskException(t.id, e) from Task t join t.exceptions e " +
+            "where t.id in :taskIds")
+    List<TaskException> findExceptions(@Param("taskIds") Collection<Long> taskIds);
+}
@@ -0,0 +1,26 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.SoldierConflict;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Raised when one or more soldiers in a bulk assignment already have an overlapping task.
+ * Carries every conflicting soldier so callers can report them all at once.
+ */
+public class AssignmentConflictException extends IllegalArgumentException {
+
+    private final List<SoldierConflict> conflicts;
+
+    public AssignmentConflictException(List<SoldierConflict> conflicts) {
+        super(conflicts.stream()
+                .map(conflict -> conflict.soldierName() + " has a conflicting task")
+                .collect(Collectors.joining("; ")));
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public List<SoldierConflict> getConflicts() {
+        return conflicts;
+    }
+}
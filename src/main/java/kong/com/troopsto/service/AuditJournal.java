@@ -0,0 +1,159 @@
+package kong.com.troopsto.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import kong.com.troopsto.dto.AuditEntry;
+import kong.com.troopsto.dto.AuthenticatedUser;
+import kong.com.troopsto.util.Transactions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of assignment changes, written off the request path. Services hand entries
+ * to a bounded ring buffer once their transaction commits; a single background thread drains it
+ * into {@code assignment_audit} in JDBC batches.
+ * <p>
+ * Publishing never blocks. If the writer falls so far behind that the buffer fills up, new
+ * entries are dropped and counted in {@code audit.journal.dropped} rather than slowing requests
+ * down. Whatever is still buffered at shutdown is written before the data source closes.
+ */
+@Service
+public class AuditJournal {
+    private static final Logger log = LoggerFactory.getLogger(AuditJournal.class);
+
+    private static final String INSERT = "INSERT INTO assignment_audit " +
+            "(occurred_at, action, soldier_id, task_id, task_name, actor) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_HISTORY = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArrayBlockingQueue<AuditEntry> buffer;
+    private final int batchSize;
+    private final Thread writer;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+
+    private volatile boolean running = true;
+
+    public AuditJournal(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                        @Value("${troops.audit.capacity:10000}") int capacity,
+                        @Value("${troops.audit.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+
+        Gauge.builder("audit.journal.backlog", buffer, ArrayBlockingQueue::size)
+                .description("Audit entries waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("audit.journal.capacity", buffer, queue -> queue.size() + queue.remainingCapacity())
+                .register(meterRegistry);
+        this.dropped = Counter.builder("audit.journal.dropped")
+                .description("Audit entries lost because the buffer was full")
+                .register(meterRegistry);
+        this.written = Counter.builder("audit.journal.written").register(meterRegistry);
+        this.failed = Counter.builder("audit.journal.failed")
+                .description("Audit entries lost to a failed batch insert")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::drainLoop, "audit-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static AuditEntry entry(String action, Long soldierId, Long taskId, String taskName) {
+        return new AuditEntry(Instant.now(), action, soldierId, taskId, taskName, currentActor());
+    }
+
+    /** Queues entries once the surrounding transaction commits, so rolled-back changes leave no trace. */
+    public void publish(List<AuditEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<AuditEntry> pending = List.copyOf(entries);
+        Transactions.afterCommit(() -> {
+            for (AuditEntry entry : pending) {
+                if (!buffer.offer(entry)) {
+                    dropped.increment();
+                }
+            }
+        });
+    }
+
+    public List<AuditEntry> history(Long soldierId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT occurred_at, action, soldier_id, task_id, task_name, actor FROM assignment_audit " +
+                        "WHERE soldier_id = ? ORDER BY occurred_at DESC, id DESC LIMIT ?",
+                (rs, row) -> new AuditEntry(rs.getTimestamp("occurred_at").toInstant(), rs.getString("action"),
+                        rs.getObject("soldier_id", Long.class), rs.getObject("task_id", Long.class),
+                        rs.getString("task_name"), rs.getString("actor")),
+                soldierId, Math.max(1, Math.min(limit, MAX_HISTORY)));
+    }
+
+    private void drainLoop() {
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditEntry first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<AuditEntry> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (AuditEntry entry : batch) {
+            rows.add(new Object[]{Timestamp.from(entry.occurredAt()), entry.action(), entry.soldierId(),
+                    entry.taskId(), entry.taskName(), entry.actor()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT, rows);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.warn("Dropped {} audit entries: {}", batch.size(), e.getMessage());
+        }
+        batch.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(Duration.ofSeconds(5).toMillis());
+
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.username();
+        }
+        return null;
+    }
+}
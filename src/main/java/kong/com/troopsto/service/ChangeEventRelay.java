@@ -0,0 +1,26 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.config.WebSocketConfig;
+import kong.com.troopsto.dto.ChangeEvent;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Forwards change events to STOMP subscribers once the originating transaction has committed,
+ * so clients never see a change that is later rolled back.
+ */
+@Component
+public class ChangeEventRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public ChangeEventRelay(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        messagingTemplate.convertAndSend(WebSocketConfig.CHANGES_TOPIC, event);
+    }
+}
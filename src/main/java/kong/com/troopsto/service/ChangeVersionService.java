@@ -0,0 +1,112 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.ChangeEvent;
+import kong.com.troopsto.dto.Versioned;
+import kong.com.troopsto.repository.SoldierRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Maintains the monotonically increasing change version behind ETags and delta sync.
+ * <p>
+ * Every mutating transaction bumps the single counter row and stamps the rows it touched with the
+ * new value. The counter row stays locked until commit, so versions become visible in commit
+ * order and a client that has seen version {@code v} can never miss a change numbered {@code <= v}.
+ */
+@Service
+public class ChangeVersionService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SoldierRepository soldierRepository;
+
+    public ChangeVersionService(JdbcTemplate jdbcTemplate, SoldierRepository soldierRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.soldierRepository = soldierRepository;
+    }
+
+    /**
+     * The committed version, from the primary unless called inside a read-only transaction. Read
+     * on every conditional request rather than cached: a cached value would miss writes made
+     * through other instances and answer their clients with stale 304s.
+     */
+    public long currentFromDatabase() {
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM change_version WHERE id = 1", Long.class);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Runs a read in one read-only transaction, after reading the version it starts from. The
+     * read may go to a replica that lags the primary; tagging it with the replica's own version
+     * means an ETag can only ever be older than the data it labels, never newer.
+     */
+    @Transactional(readOnly = true)
+    public <T> Versioned<T> readVersioned(Supplier<T> read) {
+        long version = currentFromDatabase();
+        return new Versioned<>(version, read.get());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long record(Collection<Long> changedSoldiers, Collection<Long> changedTasks,
+                       Collection<Long> deletedSoldiers, Collection<Long> deletedTasks) {
+        // Soldier rows are locked before the counter, the same order assignSoldiers takes them in;
+        // stamping them only after the counter could deadlock against a waiting assignment
+        if (!changedSoldiers.isEmpty()) {
+            soldierRepository.lockAllById(changedSoldiers);
+        }
+        jdbcTemplate.update("UPDATE change_version SET version = version + 1 WHERE id = 1");
+        long version = currentFromDatabase();
+
+        stamp("soldier", changedSoldiers, version);
+        stamp("task", changedTasks, version);
+        tombstone(ChangeEvent.SOLDIER, deletedSoldiers, version);
+        tombstone(ChangeEvent.TASK, deletedTasks, version);
+        return version;
+    }
+
+    public List<Long> deletedSince(String entityType, long since) {
+        return jdbcTemplate.queryForList(
+                "SELECT entity_id FROM change_tombstone WHERE entity_type = ? AND change_version > ? ORDER BY entity_id",
+                Long.class, entityType, since);
+    }
+
+    // Weak, because the same version is served as JSON, CBOR and gzip; Tomcat also refuses to
+    // compress a response that carries a strong tag
+    public static String etag(long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /** Tag for another shape of the same version; {@code null} gives the plain tag. */
+    public static String etag(long version, String variant) {
+        return variant == null ? etag(version) : "W/\"" + version + "-" + variant + "\"";
+    }
+
+    private void stamp(String table, Collection<Long> ids, long version) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            rows.add(new Object[]{version, id});
+        }
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET change_version = ? WHERE id = ?", rows);
+    }
+
+    private void tombstone(String entityType, Collection<Long> ids, long version) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            rows.add(new Object[]{entityType, id, version});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO change_tombstone (entity_type, entity_id, change_version) VALUES (?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,106 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.ManningHeatmap;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.util.DateTimes;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Counts free soldiers per squad or team in every 15-minute slot of a window.
+ * <p>
+ * Each soldier's busy bitmap comes from the schedule index. Free bitmaps are summed into a
+ * bit-sliced counter per group, a ripple-carry add across bit planes, so one word operation
+ * counts 64 slots at once and the per-slot totals are only unpacked at the end.
+ */
+@Service
+public class ManningHeatmapService {
+    public static final int MAX_DAYS = 42;
+    private static final int SLOTS_PER_DAY = (int) (24 * 60 * 60 * 1000L / ScheduleIndex.SLOT_MILLIS);
+    private static final String UNGROUPED = "Unassigned";
+
+    private final ScheduleIndex scheduleIndex;
+    private final RosterCache rosterCache;
+
+    public ManningHeatmapService(ScheduleIndex scheduleIndex, RosterCache rosterCache) {
+        this.scheduleIndex = scheduleIndex;
+        this.rosterCache = rosterCache;
+    }
+
+    public ManningHeatmap heatmap(String from, int days, String groupBy) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_DAYS);
+        }
+        Function<SoldierSummary, String> grouping = switch (groupBy == null ? "squad" : groupBy) {
+            case "squad" -> SoldierSummary::squad;
+            case "team" -> SoldierSummary::team;
+            default -> throw new IllegalArgumentException("groupBy must be 'squad' or 'team'");
+        };
+
+        long firstSlot = Math.floorDiv(DateTimes.toEpochMillis(from), ScheduleIndex.SLOT_MILLIS);
+        int slots = days * SLOTS_PER_DAY;
+        long firstWord = Math.floorDiv(firstSlot, 64);
+        int offset = (int) (firstSlot - firstWord * 64);
+        int words = (offset + slots + 63) / 64;
+
+        Map<String, SlotCounter> counters = new TreeMap<>();
+        for (SoldierSummary soldier : rosterCache.roster()) {
+            String group = grouping.apply(soldier);
+            SlotCounter counter = counters.computeIfAbsent(group == null || group.isBlank() ? UNGROUPED : group,
+                    name -> new SlotCounter(words));
+            counter.addFree(scheduleIndex.busyWords(soldier.id(), firstWord, words));
+        }
+
+        List<ManningHeatmap.Group> groups = new ArrayList<>(counters.size());
+        counters.forEach((name, counter) ->
+                groups.add(new ManningHeatmap.Group(name, counter.soldiers, counter.counts(offset, slots))));
+        return new ManningHeatmap(Instant.ofEpochMilli(firstSlot * ScheduleIndex.SLOT_MILLIS),
+                (int) (ScheduleIndex.SLOT_MILLIS / 60_000), slots, groupBy == null ? "squad" : groupBy, groups);
+    }
+
+    /** Per-slot counts held as bit planes: bit i of every slot's count lives in planes.get(i). */
+    private static final class SlotCounter {
+        private final int words;
+        private final List<long[]> planes = new ArrayList<>();
+        private int soldiers;
+
+        SlotCounter(int words) {
+            this.words = words;
+        }
+
+        void addFree(long[] busy) {
+            soldiers++;
+            if (Integer.bitCount(soldiers) == 1) {
+                // Count may now need one more bit
+                planes.add(new long[words]);
+            }
+            for (int w = 0; w < words; w++) {
+                long carry = busy == null ? -1L : ~busy[w];
+                for (int i = 0; carry != 0; i++) {
+                    long[] plane = planes.get(i);
+                    long next = plane[w] & carry;
+                    plane[w] ^= carry;
+                    carry = next;
+                }
+            }
+        }
+
+        int[] counts(int offset, int slots) {
+            int[] counts = new int[slots];
+            for (int i = 0; i < planes.size(); i++) {
+                long[] plane = planes.get(i);
+                for (int slot = 0; slot < slots; slot++) {
+                    int bit = offset + slot;
+                    counts[slot] |= (int) ((plane[bit >>> 6] >>> (bit & 63)) & 1L) << i;
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -1,47 +1,101 @@
 package kong.com.troopsto.service;
 
-import kong.com.troopsto.config.SecurityConfig;
 import kong.com.troopsto.model.Profile;
-import kong.com.troopsto.model.Role;
 import kong.com.troopsto.repository.ProfileRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ProfileService {
+    private static final Logger log = LoggerFactory.getLogger(ProfileService.class);
+
     private final ProfileRepository profileRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UsernameFilter usernameFilter;
+    // Database writes that follow a hash run here rather than on the small hashing pool, so a
+    // hashing thread never sits waiting for a connection during a login burst. Boot's executor
+    // uses virtual threads only when spring.threads.virtual.enabled is set.
+    private final AsyncTaskExecutor writes;
 
-    public ProfileService(ProfileRepository profileRepository, PasswordEncoder passwordEncoder) {
+    public ProfileService(ProfileRepository profileRepository, PasswordHashingService passwordHashingService,
+                          UsernameFilter usernameFilter,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                          AsyncTaskExecutor writes) {
         this.profileRepository = profileRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.usernameFilter = usernameFilter;
+        this.writes = writes;
     }
 
+    @Transactional(readOnly = true)
     public List<Profile> findAllProfiles() {
         return profileRepository.findAll();
     }
 
-    public Profile registerUser(Profile profile) {
-        profile.setPassword(passwordEncoder.encode(profile.getPassword()));
+    public CompletableFuture<Profile> registerUser(Profile profile) {
+        return passwordHashingService.encode(profile.getPassword()).thenApplyAsync(hash -> {
+            profile.setPassword(hash);
+
+            Profile savedProfile = profileRepository.save(profile);
+            usernameFilter.added(savedProfile.getUsername());
+
+            log.info("Registered user with ID: {}", savedProfile.getId());
 
-        Profile savedProfile = profileRepository.save(profile);
+            return savedProfile;
+        }, writes);
+    }
+
+    /**
+     * Verifies a login off the request thread. A hash made with a lower BCrypt cost than the
+     * configured one is re-hashed in the background after a successful match.
+     */
+    public CompletableFuture<Optional<Profile>> authenticate(String username, String rawPassword) {
+        Profile profile = findProfileByName(username);
+        if (profile == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
 
-        System.out.println("Registered user with ID: " + savedProfile.getId());
+        return passwordHashingService.matches(rawPassword, profile.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                return Optional.empty();
+            }
+            if (passwordHashingService.needsUpgrade(profile.getPassword())) {
+                upgradePassword(profile.getId(), rawPassword);
+            }
+            return Optional.of(profile);
+        });
+    }
 
-        return savedProfile;
+    private void upgradePassword(Long profileId, String rawPassword) {
+        passwordHashingService.encode(rawPassword)
+                .thenAcceptAsync(hash -> profileRepository.updatePassword(profileId, hash), writes)
+                .exceptionally(e -> {
+                    // Not fatal; the old hash still works and we try again on the next login
+                    log.warn("Password rehash skipped for profile {}: {}", profileId, e.getMessage());
+                    return null;
+                });
     }
 
+    // Deliberately not read-only: a lagging replica could turn away a login right after signup
     public Profile findProfileByName(String username) {
         return profileRepository.findProfileByUsername(username).orElse(null);
     }
 
     public Boolean existsByUsername(String username) {
-        return profileRepository.existsByUsername(username);
+        return usernameFilter.exists(username);
     }
 
+    @Transactional(readOnly = true)
     public Profile findById(Long id) {
         return profileRepository.findById(id).orElse(null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package kong.com.troopsto.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.dto.SoldierView;
+import kong.com.troopsto.dto.Versioned;
+import kong.com.troopsto.model.Soldier;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.util.Transactions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bounded in-process cache of the soldier roster, of each soldier's row with their schedule, and
+ * of the full roster list assembled from those rows.
+ * <p>
+ * Entries are invalidated after commit by the services that change them, per soldier where a
+ * change names one; the write TTL only bounds staleness caused by writes made on another instance.
+ * Assembling the list also reloads every soldier stamped with a change since the last assembly,
+ * so writes from other instances cannot outlive it. The list carries the change version read just
+ * before its rows, so an ETag built from it can only ever be older than the data it labels. Hit,
+ * miss and eviction counts are published as {@code cache.*} meters.
+ */
+@Component
+public class RosterCache {
+    private static final String ROSTER_KEY = "all";
+    private static final long NEVER_SYNCED = -1;
+
+    private final SoldierRepository soldierRepository;
+    private final ChangeVersionService changeVersionService;
+    private final Cache<String, List<SoldierSummary>> roster;
+    private final Cache<Long, SoldierView> soldiers;
+    private final Cache<String, Versioned<List<SoldierView>>> views;
+    // Version the per-soldier entries were last reconciled against; written only by the list loader
+    private volatile long syncedVersion = NEVER_SYNCED;
+
+    public RosterCache(SoldierRepository soldierRepository,
+                       ChangeVersionService changeVersionService,
+                       MeterRegistry meterRegistry,
+                       @Value("${troops.cache.soldiers.maximum-size:10000}") long maximumSoldiers,
+                       @Value("${troops.cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.soldierRepository = soldierRepository;
+        this.changeVersionService = changeVersionService;
+        this.roster = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.soldiers = Caffeine.newBuilder()
+                .maximumSize(maximumSoldiers)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.views = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, roster, "roster");
+        CaffeineCacheMetrics.monitor(meterRegistry, soldiers, "soldierViews");
+        CaffeineCacheMetrics.monitor(meterRegistry, views, "rosterViews");
+    }
+
+    public List<SoldierSummary> roster() {
+        return roster.get(ROSTER_KEY, key -> loadRoster());
+    }
+
+    public Versioned<List<SoldierView>> views() {
+        return views.get(ROSTER_KEY, key -> loadViews());
+    }
+
+    /** A soldier was saved or deleted; {@code null} when only new soldiers were added. */
+    public void rosterChanged(Long soldierId) {
+        Transactions.afterCommit(() -> {
+            roster.invalidate(ROSTER_KEY);
+            if (soldierId != null) {
+                soldiers.invalidate(soldierId);
+            }
+            views.invalidate(ROSTER_KEY);
+        });
+    }
+
+    public void schedulesChanged(Collection<Long> soldierIds) {
+        List<Long> affected = List.copyOf(soldierIds);
+        Transactions.afterCommit(() -> {
+            soldiers.invalidateAll(affected);
+            views.invalidate(ROSTER_KEY);
+        });
+    }
+
+    public void invalidateAll() {
+        syncedVersion = NEVER_SYNCED;
+        roster.invalidateAll();
+        soldiers.invalidateAll();
+        views.invalidateAll();
+    }
+
+    // Summaries carry no schedule, so the tasks are not fetched
+    private List<SoldierSummary> loadRoster() {
+        return soldierRepository.findAll(Sort.by("id")).stream()
+                .map(SoldierSummary::from)
+                .toList();
+    }
+
+    private Versioned<List<SoldierView>> loadViews() {
+        // Read before the rows: a write landing in between makes the tag older, never newer,
+        // and stamps its soldiers above it, so the next assembly reloads them
+        long version = changeVersionService.currentFromDatabase();
+        long since = syncedVersion;
+        List<SoldierView> loaded;
+        if (since == NEVER_SYNCED || soldiers.estimatedSize() == 0) {
+            // One fetch join warms every soldier's entry
+            loaded = soldierRepository.findAllWithTasks().stream()
+                    .map(SoldierView::from)
+                    .toList();
+            loaded.forEach(view -> soldiers.put(view.id(), view));
+        } else {
+            soldiers.invalidateAll(soldierRepository.findIdsChangedSince(since));
+            List<Long> ids = soldierRepository.findAllIds();
+            Map<Long, SoldierView> byId = soldiers.getAll(ids, this::loadSoldiers);
+            // A soldier deleted since the ids were read has no row to load
+            loaded = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        }
+        syncedVersion = version;
+        return new Versioned<>(version, loaded);
+    }
+
+    private Map<Long, SoldierView> loadSoldiers(Set<? extends Long> soldierIds) {
+        Map<Long, SoldierView> loaded = new HashMap<>();
+        for (Soldier soldier : soldierRepository.findAllWithTasksByIdIn(List.copyOf(soldierIds))) {
+            loaded.put(soldier.getId(), SoldierView.from(soldier));
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,486 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.ChangeEvent;
+import kong.com.troopsto.dto.TaskException;
+import kong.com.troopsto.model.Soldier;
+import kong.com.troopsto.model.Task;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import kong.com.troopsto.util.Recurrence;
+import kong.com.troopsto.util.Transactions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory per-soldier interval index over assigned tasks.
+ * <p>
+ * Each soldier's schedule is an immutable array of tasks sorted by start time together with a
+ * prefix maximum of end times, so an overlap query is a binary search followed by a short walk
+ * back over the candidates that can still reach into the window. Recurring tasks are kept apart
+ * and answered from their rule, so a long series costs one entry rather than one per occurrence.
+ * Schedules are replaced copy-on-write after the mutating transaction commits.
+ * <p>
+ * Writes made on another instance are picked up by comparing the database change version with
+ * the one the index was last brought up to, at most once per {@code troops.schedule-index.refresh-check}.
+ * When it has moved, only the soldiers stamped since then are reloaded.
+ */
+@Component
+public class ScheduleIndex {
+    public static final long SLOT_MILLIS = 15 * 60 * 1000L;
+    // Past this many changed soldiers a full rebuild is cheaper than an IN list
+    private static final int MAX_PARTIAL_REFRESH = 1000;
+
+    private final TaskRepository taskRepository;
+    private final SoldierRepository soldierRepository;
+    private final ChangeVersionService changeVersionService;
+    private final long refreshCheckMillis;
+
+    private final Map<Long, SoldierSchedule> schedules = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> soldiersByTask = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    private volatile long indexedVersion;
+    private volatile long checkedAt;
+
+    public ScheduleIndex(TaskRepository taskRepository, SoldierRepository soldierRepository,
+                         ChangeVersionService changeVersionService,
+                         @Value("${troops.schedule-index.refresh-check:2s}") Duration refreshCheck) {
+        this.taskRepository = taskRepository;
+        this.soldierRepository = soldierRepository;
+        this.changeVersionService = changeVersionService;
+        this.refreshCheckMillis = refreshCheck.toMillis();
+    }
+
+    public boolean isFree(Long soldierId, long start, long end, Long excludeTaskId) {
+        ensureFresh();
+        SoldierSchedule schedule = schedules.get(soldierId);
+        return schedule == null || schedule.isFree(start, end, excludeTaskId);
+    }
+
+    /**
+     * Same check as {@link #isFree}, also reporting how many schedule entries the walk examined.
+     */
+    public Probe probe(Long soldierId, long start, long end, Long excludeTaskId) {
+        ensureFresh();
+        SoldierSchedule schedule = schedules.get(soldierId);
+        return schedule == null ? Probe.EMPTY : schedule.probe(start, end, excludeTaskId);
+    }
+
+    public List<ScheduledTask> conflicts(Long soldierId, long start, long end, Long excludeTaskId) {
+        ensureFresh();
+        SoldierSchedule schedule = schedules.get(soldierId);
+        return schedule == null ? List.of() : schedule.conflicts(start, end, excludeTaskId);
+    }
+
+    /**
+     * A soldier's busy 15-minute slots as a bitmap, 64 slots to a word: word {@code w} covers the
+     * slots starting at {@code 64 * w * SLOT_MILLIS} since the epoch. Returns {@code null} when the
+     * soldier has nothing scheduled. Bitmaps are memoized on the soldier's schedule, which is
+     * replaced whenever one of their tasks changes, so only touched soldiers are recomputed.
+     */
+    public long[] busyWords(Long soldierId, long firstWord, int words) {
+        ensureFresh();
+        SoldierSchedule schedule = schedules.get(soldierId);
+        return schedule == null ? null : schedule.busyWords(firstWord, words);
+    }
+
+    public Set<Long> soldiersAssignedTo(Long taskId) {
+        ensureFresh();
+        Set<Long> soldierIds = soldiersByTask.get(taskId);
+        return soldierIds == null ? Set.of() : Set.copyOf(soldierIds);
+    }
+
+    /**
+     * Re-indexes a task from its current assignments. Covers both new tasks and tasks that were
+     * re-saved with different times or a different assigned set.
+     */
+    public void taskSaved(Task task) {
+        if (task.getId() == null) {
+            return;
+        }
+        ScheduledTask entry = toEntry(task);
+        List<Long> soldierIds = new ArrayList<>();
+        for (Soldier soldier : task.getAssigned()) {
+            if (soldier.getId() != null) {
+                soldierIds.add(soldier.getId());
+            }
+        }
+        afterCommit(() -> {
+            removeFromIndex(task.getId());
+            if (entry != null) {
+                soldierIds.forEach(soldierId -> addToIndex(soldierId, entry));
+            }
+        });
+    }
+
+    public void taskRemoved(Long taskId) {
+        afterCommit(() -> removeFromIndex(taskId));
+    }
+
+    public void tasksRemoved(Collection<Long> taskIds) {
+        List<Long> removed = List.copyOf(taskIds);
+        afterCommit(() -> removed.forEach(this::removeFromIndex));
+    }
+
+    public void soldierRemoved(Long soldierId) {
+        afterCommit(() -> {
+            SoldierSchedule removed = schedules.remove(soldierId);
+            if (removed != null) {
+                for (ScheduledTask task : removed.entries()) {
+                    soldiersByTask.computeIfPresent(task.taskId(), (id, ids) -> {
+                        ids.remove(soldierId);
+                        return ids.isEmpty() ? null : ids;
+                    });
+                }
+            }
+        });
+    }
+
+    public synchronized void rebuild() {
+        // Read before the rows, so a write landing in between is picked up by the next refresh
+        long version = changeVersionService.currentFromDatabase();
+        Map<Long, List<ScheduledTask>> bySoldier = toEntries(taskRepository.findAllAssignments(),
+                taskRepository.findAllExceptions());
+
+        schedules.clear();
+        soldiersByTask.clear();
+        bySoldier.forEach(this::replaceSchedule);
+        indexedVersion = version;
+        checkedAt = System.currentTimeMillis();
+        loaded = true;
+    }
+
+    private void ensureFresh() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                    return;
+                }
+            }
+        }
+        if (System.currentTimeMillis() - checkedAt < refreshCheckMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (System.currentTimeMillis() - checkedAt >= refreshCheckMillis) {
+                refresh();
+            }
+        }
+    }
+
+    // Reloads the soldiers stamped since the index was last brought up to date, wherever the write came from
+    private void refresh() {
+        checkedAt = System.currentTimeMillis();
+        long version = changeVersionService.currentFromDatabase();
+        if (version <= indexedVersion) {
+            return;
+        }
+        List<Long> changed = soldierRepository.findIdsChangedSince(indexedVersion);
+        if (changed.size() > MAX_PARTIAL_REFRESH) {
+            rebuild();
+            return;
+        }
+
+        Map<Long, List<ScheduledTask>> bySoldier = Map.of();
+        if (!changed.isEmpty()) {
+            List<AssignmentRow> rows = taskRepository.findAssignmentsForSoldiers(changed);
+            Set<Long> recurring = rows.stream()
+                    .filter(row -> row.recurrence() != null)
+                    .map(AssignmentRow::taskId)
+                    .collect(Collectors.toSet());
+            bySoldier = toEntries(rows, recurring.isEmpty() ? List.of() : taskRepository.findExceptions(recurring));
+        }
+        for (Long soldierId : changed) {
+            replaceSchedule(soldierId, bySoldier.getOrDefault(soldierId, List.of()));
+        }
+        for (Long soldierId : changeVersionService.deletedSince(ChangeEvent.SOLDIER, indexedVersion)) {
+            replaceSchedule(soldierId, List.of());
+        }
+        indexedVersion = version;
+    }
+
+    private static Map<Long, List<ScheduledTask>> toEntries(List<AssignmentRow> rows, List<TaskException> taskExceptions) {
+        Map<Long, List<Instant>> exceptions = taskExceptions.stream()
+                .collect(Collectors.groupingBy(TaskException::taskId,
+                        Collectors.mapping(TaskException::occurrenceStart, Collectors.toList())));
+        Map<Long, ScheduledTask> entries = new HashMap<>();
+        Map<Long, List<ScheduledTask>> bySoldier = new HashMap<>();
+        for (AssignmentRow row : rows) {
+            if (row.start() == null || row.end() == null) {
+                continue;
+            }
+            ScheduledTask entry = entries.computeIfAbsent(row.taskId(), id -> new ScheduledTask(id, row.taskName(),
+                    row.start().toEpochMilli(), row.end().toEpochMilli(),
+                    row.recurrence() == null ? null : row.occurrences(exceptions.get(id))));
+            bySoldier.computeIfAbsent(row.soldierId(), id -> new ArrayList<>()).add(entry);
+        }
+        return bySoldier;
+    }
+
+    private void replaceSchedule(Long soldierId, List<ScheduledTask> entries) {
+        SoldierSchedule previous = entries.isEmpty()
+                ? schedules.remove(soldierId)
+                : schedules.put(soldierId, new SoldierSchedule(entries));
+        if (previous != null) {
+            for (ScheduledTask task : previous.entries()) {
+                soldiersByTask.computeIfPresent(task.taskId(), (id, ids) -> {
+                    ids.remove(soldierId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        for (ScheduledTask task : entries) {
+            soldiersByTask.computeIfAbsent(task.taskId(), id -> ConcurrentHashMap.newKeySet()).add(soldierId);
+        }
+    }
+
+    private void addToIndex(Long soldierId, ScheduledTask entry) {
+        if (!loaded) {
+            return;
+        }
+        schedules.compute(soldierId, (id, schedule) -> schedule == null
+                ? new SoldierSchedule(List.of(entry))
+                : schedule.with(entry));
+        soldiersByTask.computeIfAbsent(entry.taskId(), id -> ConcurrentHashMap.newKeySet()).add(soldierId);
+    }
+
+    private void removeFromIndex(Long taskId) {
+        Set<Long> soldierIds = soldiersByTask.remove(taskId);
+        if (soldierIds == null) {
+            return;
+        }
+        for (Long soldierId : soldierIds) {
+            schedules.computeIfPresent(soldierId, (id, schedule) -> schedule.without(taskId));
+        }
+    }
+
+    private static ScheduledTask toEntry(Task task) {
+        if (task.getStart() == null || task.getEnd() == null) {
+            return null;
+        }
+        return new ScheduledTask(task.getId(), task.getName(), task.getStart().toEpochMilli(),
+                task.getEnd().toEpochMilli(), task.getRecurrence() == null ? null : task.occurrences());
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            synchronized (this) {
+                action.run();
+            }
+        };
+        Transactions.afterCommit(guarded);
+    }
+
+    /**
+     * An indexed task. For a recurring task {@code start}/{@code end} are its first occurrence and
+     * {@code recurrence} holds the rule; conflict results carry the clashing occurrence instead.
+     */
+    public record ScheduledTask(long taskId, String name, long start, long end, Recurrence recurrence) {
+
+        public ScheduledTask(long taskId, String name, long start, long end) {
+            this(taskId, name, start, end, null);
+        }
+
+        ScheduledTask occurrenceAt(long occurrenceStart) {
+            return new ScheduledTask(taskId, name, occurrenceStart, occurrenceStart + (end - start), recurrence);
+        }
+    }
+
+    private record BusyWords(long firstWord, long[] words) {
+        boolean covers(long first, int count) {
+            return first >= firstWord && first + count <= firstWord + words.length;
+        }
+
+        long[] slice(long first, int count) {
+            int offset = (int) (first - firstWord);
+            return Arrays.copyOfRange(words, offset, offset + count);
+        }
+    }
+
+    public record Probe(boolean free, int examined) {
+        static final Probe EMPTY = new Probe(true, 0);
+    }
+
+    static final class SoldierSchedule {
+        private static final Comparator<ScheduledTask> BY_START =
+                Comparator.comparingLong(ScheduledTask::start).thenComparingLong(ScheduledTask::taskId);
+        private static final ScheduledTask[] NONE = new ScheduledTask[0];
+
+        private final ScheduledTask[] tasks;
+        private final long[] starts;
+        private final long[] maxEnds;
+        private final ScheduledTask[] recurring;
+        private volatile BusyWords busy;
+
+        SoldierSchedule(Collection<ScheduledTask> entries) {
+            List<ScheduledTask> single = new ArrayList<>(entries.size());
+            List<ScheduledTask> repeating = new ArrayList<>();
+            for (ScheduledTask entry : entries) {
+                (entry.recurrence() == null ? single : repeating).add(entry);
+            }
+            this.tasks = single.toArray(NONE);
+            this.recurring = repeating.isEmpty() ? NONE : repeating.toArray(NONE);
+            Arrays.sort(this.tasks, BY_START);
+            this.starts = new long[tasks.length];
+            this.maxEnds = new long[tasks.length];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < tasks.length; i++) {
+                starts[i] = tasks[i].start();
+                maxEnd = Math.max(maxEnd, tasks[i].end());
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        SoldierSchedule with(ScheduledTask entry) {
+            List<ScheduledTask> entries = entries(entry.taskId());
+            entries.add(entry);
+            return new SoldierSchedule(entries);
+        }
+
+        SoldierSchedule without(Long taskId) {
+            List<ScheduledTask> entries = entries(taskId);
+            return entries.isEmpty() ? null : new SoldierSchedule(entries);
+        }
+
+        List<ScheduledTask> entries() {
+            return entries(Long.MIN_VALUE);
+        }
+
+        private List<ScheduledTask> entries(long exceptTaskId) {
+            List<ScheduledTask> entries = new ArrayList<>(tasks.length + recurring.length + 1);
+            for (ScheduledTask task : tasks) {
+                if (task.taskId() != exceptTaskId) {
+                    entries.add(task);
+                }
+            }
+            for (ScheduledTask task : recurring) {
+                if (task.taskId() != exceptTaskId) {
+                    entries.add(task);
+                }
+            }
+            return entries;
+        }
+
+        boolean isFree(long start, long end, Long excludeTaskId) {
+            for (int i = firstStartingAtOrAfter(end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+                if (tasks[i].end() > start && !excluded(tasks[i], excludeTaskId)) {
+                    return false;
+                }
+            }
+            for (ScheduledTask task : recurring) {
+                if (!excluded(task, excludeTaskId) && task.recurrence().overlaps(start, end)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Probe probe(long start, long end, Long excludeTaskId) {
+            int examined = 0;
+            for (int i = firstStartingAtOrAfter(end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+                examined++;
+                if (tasks[i].end() > start && !excluded(tasks[i], excludeTaskId)) {
+                    return new Probe(false, examined);
+                }
+            }
+            for (ScheduledTask task : recurring) {
+                examined++;
+                if (!excluded(task, excludeTaskId) && task.recurrence().overlaps(start, end)) {
+                    return new Probe(false, examined);
+                }
+            }
+            return new Probe(true, examined);
+        }
+
+        /** Clashing tasks; a recurring task is reported once, as its earliest clashing occurrence. */
+        List<ScheduledTask> conflicts(long start, long end, Long excludeTaskId) {
+            List<ScheduledTask> result = new ArrayList<>();
+            for (int i = firstStartingAtOrAfter(end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+                if (tasks[i].end() > start && !excluded(tasks[i], excludeTaskId)) {
+                    result.add(tasks[i]);
+                }
+            }
+            for (ScheduledTask task : recurring) {
+                if (!excluded(task, excludeTaskId)) {
+                    long occurrence = task.recurrence().firstOverlapping(start, end);
+                    if (occurrence != Long.MIN_VALUE) {
+                        result.add(task.occurrenceAt(occurrence));
+                    }
+                }
+            }
+            result.sort(BY_START);
+            return result;
+        }
+
+        long[] busyWords(long firstWord, int count) {
+            BusyWords cached = busy;
+            if (cached == null || !cached.covers(firstWord, count)) {
+                cached = new BusyWords(firstWord, computeBusyWords(firstWord, count));
+                busy = cached;
+            }
+            return cached.slice(firstWord, count);
+        }
+
+        private long[] computeBusyWords(long firstWord, int count) {
+            long[] words = new long[count];
+            long from = firstWord * 64 * SLOT_MILLIS;
+            long to = (firstWord + count) * 64 * SLOT_MILLIS;
+            for (int i = firstStartingAtOrAfter(to) - 1; i >= 0 && maxEnds[i] > from; i--) {
+                if (tasks[i].end() > from) {
+                    markBusy(words, firstWord, tasks[i].start(), tasks[i].end());
+                }
+            }
+            for (ScheduledTask task : recurring) {
+                long duration = task.end() - task.start();
+                task.recurrence().forEachOccurrence(from, to,
+                        start -> markBusy(words, firstWord, start, start + duration));
+            }
+            return words;
+        }
+
+        // A slot is busy if any part of it is taken
+        private static void markBusy(long[] words, long firstWord, long start, long end) {
+            long base = firstWord * 64;
+            int from = (int) Math.max(0, Math.floorDiv(start, SLOT_MILLIS) - base);
+            int to = (int) Math.min((long) words.length * 64, -Math.floorDiv(-end, SLOT_MILLIS) - base);
+            while (from < to) {
+                int bit = from & 63;
+                int length = Math.min(64 - bit, to - from);
+                words[from >>> 6] |= (length == 64 ? -1L : (1L << length) - 1) << bit;
+                from += length;
+            }
+        }
+
+        private int firstStartingAtOrAfter(long time) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static boolean excluded(ScheduledTask task, Long excludeTaskId) {
+            return excludeTaskId != null && task.taskId() == excludeTaskId;
+        }
+    }
+}
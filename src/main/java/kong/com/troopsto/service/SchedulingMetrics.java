@@ -0,0 +1,56 @@
+package kong.com.troopsto.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers and scan-size histograms for the scheduling hot paths, published as
+ * {@code scheduling.operation}, {@code scheduling.soldiers.scanned} and
+ * {@code scheduling.tasks.scanned}, each tagged with the operation name.
+ */
+@Component
+public class SchedulingMetrics {
+    public static final String ASSIGN = "assign";
+    public static final String CONFLICT_CHECK = "conflict-check";
+    public static final String AVAILABILITY = "availability";
+    public static final String STAFFING = "staffing";
+    public static final String HEATMAP = "heatmap";
+
+    private final MeterRegistry meterRegistry;
+
+    public SchedulingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T time(String operation, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("scheduling.operation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    public void scanned(String operation, int soldiers, int tasks) {
+        summary("scheduling.soldiers.scanned", operation).record(soldiers);
+        summary("scheduling.tasks.scanned", operation).record(tasks);
+    }
+
+    private DistributionSummary summary(String name, String operation) {
+        return DistributionSummary.builder(name)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,218 @@
+package kong.com.troopsto.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kong.com.troopsto.dto.SoldierImportReport;
+import kong.com.troopsto.dto.SoldierImportReport.RowError;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.model.Soldier;
+import kong.com.troopsto.util.Csv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams a roster file into the database one line at a time. Rows are validated as they are
+ * read and written in chunks, each chunk in its own transaction, so memory stays flat however
+ * large the file is. A chunk the database still rejects is retried row by row, so a bad row
+ * only costs itself.
+ */
+@Service
+public class SoldierImportService {
+    private static final Logger log = LoggerFactory.getLogger(SoldierImportService.class);
+
+    static final int CHUNK_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 200;
+    // Every soldier text column is VARCHAR(255)
+    static final int MAX_LENGTH = 255;
+
+    private static final List<String> COLUMNS = List.of("firstname", "lastname", "rank", "squad", "team", "role");
+
+    private final SoldierService soldierService;
+    private final ObjectMapper objectMapper;
+
+    public SoldierImportService(SoldierService soldierService, ObjectMapper objectMapper) {
+        this.soldierService = soldierService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Imports CSV with a header row naming the columns, in any order, e.g.
+     * {@code firstName,lastName,rank,squad,team,role}. Unknown columns are ignored.
+     */
+    public SoldierImportReport importCsv(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String header = lines.readLine();
+        long lineNumber = 1;
+        while (header != null && header.isBlank()) {
+            header = lines.readLine();
+            lineNumber++;
+        }
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+
+        int[] columnIndex = columnIndex(Csv.split(header.replace("\uFEFF", "")));
+        return importLines(lines, lineNumber, line -> {
+            List<String> fields = Csv.split(line);
+            String[] values = new String[COLUMNS.size()];
+            for (int i = 0; i < values.length; i++) {
+                int index = columnIndex[i];
+                values[i] = index >= 0 && index < fields.size() ? fields.get(index) : null;
+            }
+            return soldier(values[0], values[1], values[2], values[3], values[4], values[5]);
+        });
+    }
+
+    /** Imports JSON lines, one soldier object per line with the same fields the API returns. */
+    public SoldierImportReport importJsonLines(Reader reader) throws IOException {
+        return importLines(new BufferedReader(reader), 0, line -> {
+            SoldierSummary row;
+            try {
+                row = objectMapper.readValue(line, SoldierSummary.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (row == null) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return soldier(row.firstName(), row.lastName(), row.rank(), row.squad(), row.team(), row.role());
+        });
+    }
+
+    private SoldierImportReport importLines(BufferedReader lines, long lineNumber, RowParser parser) throws IOException {
+        Chunk chunk = new Chunk();
+        Outcome outcome = new Outcome();
+
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(lineNumber, parser.parse(line));
+            } catch (IllegalArgumentException e) {
+                outcome.reject(lineNumber, e.getMessage());
+            }
+            if (chunk.soldiers.size() >= CHUNK_SIZE) {
+                write(chunk, outcome);
+            }
+        }
+        write(chunk, outcome);
+
+        log.info("Soldier import finished: {} imported, {} rejected", outcome.imported, outcome.failed);
+        return new SoldierImportReport(outcome.imported, outcome.failed, outcome.errors);
+    }
+
+    private void write(Chunk chunk, Outcome outcome) {
+        if (chunk.soldiers.isEmpty()) {
+            return;
+        }
+        try {
+            outcome.imported += soldierService.importSoldiers(chunk.soldiers).size();
+        } catch (DataAccessException e) {
+            // The chunk rolled back as a whole; saving its rows one by one finds the ones at fault
+            log.warn("Soldier import chunk failed, retrying row by row: {}", e.getMostSpecificCause().getMessage());
+            for (int i = 0; i < chunk.soldiers.size(); i++) {
+                Soldier soldier = chunk.soldiers.get(i);
+                // The rolled-back persist already took an id from the sequence
+                soldier.setId(null);
+                try {
+                    outcome.imported += soldierService.importSoldiers(List.of(soldier)).size();
+                } catch (DataAccessException rowFailure) {
+                    outcome.reject(chunk.lines.get(i), "Not saved: " + rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private static int[] columnIndex(List<String> header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.putIfAbsent(header.get(i).toLowerCase(Locale.ROOT).replaceAll("[\\s_-]", ""), i);
+        }
+        if (!positions.containsKey("firstname") || !positions.containsKey("lastname")) {
+            throw new IllegalArgumentException("CSV header must include firstName and lastName");
+        }
+        int[] index = new int[COLUMNS.size()];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = positions.getOrDefault(COLUMNS.get(i), -1);
+        }
+        return index;
+    }
+
+    private static Soldier soldier(String firstName, String lastName, String rank,
+                                   String squad, String team, String role) {
+        if (firstName == null || firstName.isBlank()) {
+            throw new IllegalArgumentException("firstName is required");
+        }
+        if (lastName == null || lastName.isBlank()) {
+            throw new IllegalArgumentException("lastName is required");
+        }
+        Soldier soldier = new Soldier();
+        soldier.setFirstName(fitting("firstName", firstName.trim()));
+        soldier.setLastName(fitting("lastName", lastName.trim()));
+        soldier.setRank(fitting("rank", blankToNull(rank)));
+        soldier.setSquad(fitting("squad", blankToNull(squad)));
+        soldier.setTeam(fitting("team", blankToNull(team)));
+        soldier.setRole(fitting("role", blankToNull(role)));
+        return soldier;
+    }
+
+    // Caught here, an overlong value costs only its own row instead of failing the chunk's insert
+    private static String fitting(String field, String value) {
+        if (value != null && value.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException(field + " is longer than " + MAX_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        Soldier parse(String line);
+    }
+
+    private static final class Chunk {
+        final List<Soldier> soldiers = new ArrayList<>(CHUNK_SIZE);
+        final List<Long> lines = new ArrayList<>(CHUNK_SIZE);
+
+        void add(long line, Soldier soldier) {
+            lines.add(line);
+            soldiers.add(soldier);
+        }
+
+        void clear() {
+            lines.clear();
+            soldiers.clear();
+        }
+    }
+
+    private static final class Outcome {
+        int imported;
+        int failed;
+        final List<RowError> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+    }
+}
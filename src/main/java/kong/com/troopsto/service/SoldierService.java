@@ -1,33 +1,115 @@
 package kong.com.troopsto.service;
 
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.AuditEntry;
+import kong.com.troopsto.dto.ChangeEvent;
+import kong.com.troopsto.dto.DeltaSync;
+import kong.com.troopsto.dto.PageSlice;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.dto.SoldierView;
+import kong.com.troopsto.dto.TaskException;
+import kong.com.troopsto.dto.Versioned;
 import kong.com.troopsto.model.Soldier;
-import kong.com.troopsto.model.Task;
 import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import kong.com.troopsto.service.ScheduleIndex.ScheduledTask;
+import kong.com.troopsto.util.DateTimes;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class SoldierService {
+    // Stands in for the task to leave out of the overlap query when there is none; ids start at 1
+    private static final Long NO_TASK = 0L;
+
     public final SoldierRepository soldierRepository;
+    private final TaskRepository taskRepository;
+    private final ScheduleIndex scheduleIndex;
+    private final RosterCache rosterCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeVersionService changeVersionService;
+    private final SchedulingMetrics schedulingMetrics;
+    private final AuditJournal auditJournal;
 
-    public SoldierService(SoldierRepository soldierRepository) {
+    public SoldierService(SoldierRepository soldierRepository, TaskRepository taskRepository, ScheduleIndex scheduleIndex,
+                          RosterCache rosterCache, ApplicationEventPublisher eventPublisher,
+                          ChangeVersionService changeVersionService, SchedulingMetrics schedulingMetrics,
+                          AuditJournal auditJournal) {
         this.soldierRepository = soldierRepository;
+        this.taskRepository = taskRepository;
+        this.scheduleIndex = scheduleIndex;
+        this.rosterCache = rosterCache;
+        this.eventPublisher = eventPublisher;
+        this.changeVersionService = changeVersionService;
+        this.schedulingMetrics = schedulingMetrics;
+        this.auditJournal = auditJournal;
     }
 
+    @Transactional
     public Soldier saveNewSoldier(Soldier soldier) {
-        return soldierRepository.save(soldier);
+        String action = soldier.getId() == null ? ChangeEvent.CREATED : ChangeEvent.UPDATED;
+        Soldier savedSoldier = soldierRepository.save(soldier);
+        changeVersionService.record(List.of(savedSoldier.getId()), List.of(), List.of(), List.of());
+        rosterCache.rosterChanged(savedSoldier.getId());
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.SOLDIER, action,
+                savedSoldier.getId(), SoldierSummary.from(savedSoldier)));
+        return savedSoldier;
+    }
+
+    /**
+     * Inserts one chunk of an import in a single transaction. Sequence ids are assigned on
+     * persist, so the chunk goes out as batched inserts on flush, before the change stamps.
+     */
+    @Transactional
+    public List<Soldier> importSoldiers(List<Soldier> soldiers) {
+        List<Soldier> saved = soldierRepository.saveAll(soldiers);
+        soldierRepository.flush();
+        changeVersionService.record(saved.stream().map(Soldier::getId).toList(), List.of(), List.of(), List.of());
+        rosterCache.rosterChanged(null);
+        // One event per chunk rather than per soldier keeps large imports from flooding the feed
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.SOLDIER, ChangeEvent.IMPORTED, null,
+                saved.stream().map(SoldierSummary::from).toList()));
+        return saved;
     }
 
     public List<Soldier> getAllSoldiers(){
         return soldierRepository.findAll();
     }
 
+    public List<SoldierSummary> getRoster() {
+        return rosterCache.roster();
+    }
+
+    public Versioned<List<SoldierView>> getSoldierViews() {
+        return rosterCache.views();
+    }
+
+    @Transactional(readOnly = true)
+    public PageSlice<SoldierView> getSoldierPage(Long after, int limit) {
+        List<Long> ids = soldierRepository.findIdsAfter(after == null ? 0L : after, PageRequest.of(0, limit + 1));
+        return PageSlice.of(ids, limit, pageIds -> soldierRepository.findAllWithTasksByIdIn(pageIds).stream()
+                .map(SoldierView::from)
+                .toList());
+    }
+
+    @Transactional(readOnly = true)
+    public DeltaSync<SoldierView> getSoldierChangesSince(long since) {
+        long version = changeVersionService.currentFromDatabase();
+        List<SoldierView> changed = soldierRepository.findChangedSince(since).stream()
+                .map(SoldierView::from)
+                .toList();
+        return new DeltaSync<>(version, changed, changeVersionService.deletedSince(ChangeEvent.SOLDIER, since));
+    }
+
     public Optional<Soldier> getSoldierById(Long id) {
         return soldierRepository.findSoldierById(id);
     }
@@ -36,40 +118,82 @@ public class SoldierService {
         return soldierRepository.findSoldierByLastName(lastname);
     }
 
+    @Transactional
     public void deleteSoldier(Long id) {
+        if (!soldierRepository.existsById(id)) {
+            return;
+        }
+        // Tasks lose this soldier from their assigned list, so delta clients need them again
+        List<ScheduledTask> assignedTasks = scheduleIndex.conflicts(id, Long.MIN_VALUE, Long.MAX_VALUE, null);
+        List<Long> affectedTasks = assignedTasks.stream()
+                .map(ScheduledTask::taskId)
+                .toList();
         soldierRepository.deleteById(id);
+        changeVersionService.record(List.of(), affectedTasks, List.of(id), List.of());
+
+        List<AuditEntry> audit = new ArrayList<>();
+        audit.add(AuditJournal.entry(AuditEntry.SOLDIER_DELETED, id, null, null));
+        assignedTasks.forEach(task -> audit.add(AuditJournal.entry(AuditEntry.UNASSIGNED, id, task.taskId(), task.name())));
+        auditJournal.publish(audit);
+        scheduleIndex.soldierRemoved(id);
+        rosterCache.rosterChanged(id);
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.SOLDIER, ChangeEvent.DELETED, id, null));
     }
 
-    public boolean hasConflict(Soldier soldier, String newTaskStart, String newTaskEnd) {
-        for (Task t : soldier.getTasks()) {
-            if (timesOverlap(newTaskStart, newTaskEnd, t.getStart(), t.getEnd())) {
-                return true;
-            }
-        }
-        return false;
+    public List<AuditEntry> getHistory(Long soldierId, int limit) {
+        return auditJournal.history(soldierId, limit);
     }
 
-    private LocalDateTime parseDateTime(String dateTimeStr) {
-        try {
-            // Try parsing as ISO 8601 with Z (UTC)
-            if (dateTimeStr.endsWith("Z")) {
-                Instant instant = Instant.parse(dateTimeStr);
-                return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    public List<SoldierSummary> getAvailableSoldiers(String taskStart, String taskEnd, Long excludeTaskId) {
+        long start = DateTimes.toEpochMillis(taskStart);
+        long end = DateTimes.toEpochMillis(taskEnd);
+
+        List<SoldierSummary> roster = rosterCache.roster();
+        List<SoldierSummary> available = new ArrayList<>();
+        int tasksExamined = 0;
+        for (SoldierSummary soldier : roster) {
+            ScheduleIndex.Probe probe = scheduleIndex.probe(soldier.id(), start, end, excludeTaskId);
+            tasksExamined += probe.examined();
+            if (probe.free()) {
+                available.add(soldier);
             }
-            // Try parsing as LocalDateTime
-            return LocalDateTime.parse(dateTimeStr);
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid date format: " + dateTimeStr);
         }
+        schedulingMetrics.scanned(SchedulingMetrics.AVAILABILITY, roster.size(), tasksExamined);
+        return available;
     }
 
-    private boolean timesOverlap(String start1, String end1, String start2, String end2) {
-        LocalDateTime s1 = parseDateTime(start1);
-        LocalDateTime e1 = parseDateTime(end1);
-        LocalDateTime s2 = parseDateTime(start2);
-        LocalDateTime e2 = parseDateTime(end2);
+    /**
+     * Answered by the database rather than the schedule index, so a check made right before an
+     * assignment sees writes from every instance. Availability, the heatmap and the staffing
+     * solver scan the whole roster and stay on the index.
+     */
+    public boolean hasConflict(Soldier soldier, String newTaskStart, String newTaskEnd, Long excludeTaskId) {
+        return schedulingMetrics.time(SchedulingMetrics.CONFLICT_CHECK,
+                () -> !findConflicts(soldier.getId(), newTaskStart, newTaskEnd, excludeTaskId).isEmpty());
+    }
+
+    /** The soldier's tasks overlapping the window, recurring ones at their first overlapping occurrence. */
+    public List<ScheduledTask> findConflicts(Long soldierId, String taskStart, String taskEnd, Long excludeTaskId) {
+        long start = DateTimes.toEpochMillis(taskStart);
+        long end = DateTimes.toEpochMillis(taskEnd);
+        List<AssignmentRow> rows = soldierRepository.findBusyBetween(soldierId, Instant.ofEpochMilli(start),
+                Instant.ofEpochMilli(end), excludeTaskId == null ? NO_TASK : excludeTaskId);
+
+        List<Long> recurring = rows.stream().filter(row -> row.recurrence() != null).map(AssignmentRow::taskId).toList();
+        Map<Long, List<Instant>> exceptions = recurring.isEmpty() ? Map.of()
+                : taskRepository.findExceptions(recurring).stream()
+                .collect(Collectors.groupingBy(TaskException::taskId,
+                        Collectors.mapping(TaskException::occurrenceStart, Collectors.toList())));
 
-        return s1.isBefore(e2) && s2.isBefore(e1);
+        List<ScheduledTask> conflicts = new ArrayList<>();
+        for (AssignmentRow row : rows) {
+            long occurrence = row.occurrences(exceptions.get(row.taskId())).firstOverlapping(start, end);
+            if (occurrence != Long.MIN_VALUE) {
+                long duration = row.end().toEpochMilli() - row.start().toEpochMilli();
+                conflicts.add(new ScheduledTask(row.taskId(), row.taskName(), occurrence, occurrence + duration));
+            }
+        }
+        return conflicts;
     }
 
 }
@@ -0,0 +1,195 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.dto.StaffingDemand;
+import kong.com.troopsto.dto.StaffingPlan;
+import kong.com.troopsto.model.Soldier;
+import kong.com.troopsto.model.Task;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import kong.com.troopsto.util.DateTimes;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Staffs a batch of tasks in one pass.
+ * <p>
+ * Tasks are taken in start order and each one gets the least-loaded eligible soldiers who are free
+ * for its whole window, counting both their existing assignments (from the schedule index) and the
+ * ones planned earlier in the same batch. Load is assigned time inside the batch's overall window,
+ * so work is spread across the roster rather than piled on whoever is free first. Candidate
+ * filtering fans out across cores once the roster is large enough to pay for it.
+ */
+@Service
+public class StaffingSolver {
+    // Below this the fork/join overhead costs more than the per-soldier checks it splits up
+    private static final int PARALLEL_THRESHOLD = 2_000;
+
+    private final TaskRepository taskRepository;
+    private final SoldierRepository soldierRepository;
+    private final TaskService taskService;
+    private final ScheduleIndex scheduleIndex;
+    private final RosterCache rosterCache;
+
+    public StaffingSolver(TaskRepository taskRepository, SoldierRepository soldierRepository, TaskService taskService,
+                          ScheduleIndex scheduleIndex, RosterCache rosterCache) {
+        this.taskRepository = taskRepository;
+        this.soldierRepository = soldierRepository;
+        this.taskService = taskService;
+        this.scheduleIndex = scheduleIndex;
+        this.rosterCache = rosterCache;
+    }
+
+    public StaffingPlan plan(List<StaffingDemand> demands) {
+        if (demands == null || demands.isEmpty()) {
+            throw new IllegalArgumentException("No tasks to staff");
+        }
+        Map<Long, StaffingDemand> demandByTask = new HashMap<>();
+        for (StaffingDemand demand : demands) {
+            if (demand.taskId() == null || demand.headcount() < 0) {
+                throw new IllegalArgumentException("Each task needs a taskId and a non-negative headcount");
+            }
+            if (demandByTask.put(demand.taskId(), demand) != null) {
+                throw new IllegalArgumentException("Task listed more than once: " + demand.taskId());
+            }
+        }
+
+        List<Task> tasks = new ArrayList<>(taskRepository.findAllWithAssignedByIdIn(demandByTask.keySet()));
+        if (tasks.size() != demandByTask.size()) {
+            Set<Long> missing = new HashSet<>(demandByTask.keySet());
+            tasks.forEach(task -> missing.remove(task.getId()));
+            throw new IllegalArgumentException("Tasks not found: " + missing);
+        }
+        for (Task task : tasks) {
+            if (task.getStart() == null || task.getEnd() == null || !task.getStart().isBefore(task.getEnd())) {
+                throw new IllegalArgumentException("Task " + task.getId() + " has no valid time window");
+            }
+            if (task.getRecurrence() != null) {
+                throw new IllegalArgumentException("Task " + task.getId() + " recurs; assign recurring tasks directly");
+            }
+        }
+        tasks.sort(Comparator.comparing(Task::getStart).thenComparing(Task::getId));
+
+        long horizonStart = tasks.get(0).getStart().toEpochMilli();
+        long horizonEnd = tasks.stream().mapToLong(task -> task.getEnd().toEpochMilli()).max().orElse(horizonStart);
+
+        List<SoldierSummary> roster = rosterCache.roster();
+        Map<Long, Workload> workloads = stream(roster).collect(Collectors.toConcurrentMap(SoldierSummary::id,
+                soldier -> new Workload(existingLoad(soldier.id(), horizonStart, horizonEnd)),
+                (first, second) -> first, ConcurrentHashMap::new));
+
+        List<StaffingPlan.Staffed> staffed = new ArrayList<>();
+        List<StaffingPlan.Shortfall> shortfalls = new ArrayList<>();
+        for (Task task : tasks) {
+            StaffingDemand demand = demandByTask.get(task.getId());
+            Set<Long> alreadyAssigned = task.getAssigned().stream().map(Soldier::getId).collect(Collectors.toSet());
+            int needed = demand.headcount() - alreadyAssigned.size();
+            if (needed <= 0) {
+                staffed.add(new StaffingPlan.Staffed(task.getId(), List.of()));
+                continue;
+            }
+
+            long start = task.getStart().toEpochMilli();
+            long end = task.getEnd().toEpochMilli();
+            List<Long> chosen = stream(roster)
+                    .filter(demand::accepts)
+                    .filter(soldier -> !alreadyAssigned.contains(soldier.id()))
+                    .filter(soldier -> workloads.get(soldier.id()).isFree(start, end))
+                    .filter(soldier -> scheduleIndex.isFree(soldier.id(), start, end, task.getId()))
+                    .sorted(Comparator.comparingLong((SoldierSummary soldier) -> workloads.get(soldier.id()).load)
+                            .thenComparing(SoldierSummary::id))
+                    .limit(needed)
+                    .map(SoldierSummary::id)
+                    .toList();
+
+            for (Long soldierId : chosen) {
+                workloads.get(soldierId).add(start, end);
+            }
+            staffed.add(new StaffingPlan.Staffed(task.getId(), chosen));
+            if (chosen.size() < needed) {
+                shortfalls.add(new StaffingPlan.Shortfall(task.getId(), needed - chosen.size()));
+            }
+        }
+        return new StaffingPlan(staffed, shortfalls, false);
+    }
+
+    /**
+     * Applies a plan in a single transaction. Each task still goes through the regular assignment
+     * path, so a conflict introduced by a concurrent write rolls the whole batch back.
+     */
+    @Transactional
+    public StaffingPlan commit(StaffingPlan plan) {
+        // Lock every soldier in the plan up front, in id order, rather than task by task
+        Set<Long> soldierIds = new TreeSet<>();
+        plan.staffed().forEach(staffing -> soldierIds.addAll(staffing.soldierIds()));
+        if (!soldierIds.isEmpty()) {
+            soldierRepository.lockAllById(soldierIds);
+        }
+
+        for (StaffingPlan.Staffed staffing : plan.staffed()) {
+            if (!staffing.soldierIds().isEmpty()) {
+                taskService.assignSoldiers(staffing.taskId(), new HashSet<>(staffing.soldierIds()));
+            }
+        }
+        return plan.asCommitted();
+    }
+
+    private long existingLoad(Long soldierId, long horizonStart, long horizonEnd) {
+        long[] load = {0};
+        for (ScheduleIndex.ScheduledTask task : scheduleIndex.conflicts(soldierId, horizonStart, horizonEnd, null)) {
+            long duration = task.end() - task.start();
+            if (task.recurrence() == null) {
+                load[0] += overlap(task.start(), task.start() + duration, horizonStart, horizonEnd);
+            } else {
+                // conflicts() names a series once, at its first overlap; every occurrence in the window counts
+                task.recurrence().forEachOccurrence(horizonStart, horizonEnd, occurrence ->
+                        load[0] += overlap(occurrence, occurrence + duration, horizonStart, horizonEnd));
+            }
+        }
+        return load[0];
+    }
+
+    private static long overlap(long start, long end, long windowStart, long windowEnd) {
+        return Math.min(end, windowEnd) - Math.max(start, windowStart);
+    }
+
+    private static <T> Stream<T> stream(List<T> items) {
+        return items.size() >= PARALLEL_THRESHOLD ? items.parallelStream() : items.stream();
+    }
+
+    /** Time assigned to one soldier in the batch window, and the windows planned so far. */
+    private static final class Workload {
+        private long load;
+        private final List<long[]> planned = new ArrayList<>();
+
+        Workload(long load) {
+            this.load = load;
+        }
+
+        boolean isFree(long start, long end) {
+            for (long[] window : planned) {
+                if (DateTimes.overlaps(start, end, window[0], window[1])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long start, long end) {
+            planned.add(new long[]{start, end});
+            load += end - start;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.ChangeEvent;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.dto.TaskView;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.util.DateTimes;
+import kong.com.troopsto.util.Recurrence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves tasks whose last occurrence ended long ago out of {@code task}, {@code task_soldier} and
+ * {@code task_exception} into their {@code *_archive} twins. Finished tasks can never conflict with
+ * anything new, so keeping them out of the hot tables keeps the schedule index, roster task lists
+ * and overlap queries sized to current work rather than to the whole history.
+ * <p>
+ * Archived tasks are read back through {@link #getArchivedBetween}. Open-ended series are never
+ * archived.
+ */
+@Service
+public class TaskArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiveService.class);
+
+    private static final int CHUNK = 1000;
+    private static final String COLUMNS =
+            "id, name, description, reason, location, created, start_at, end_at, recurrence, recurrence_until, series_end_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SoldierRepository soldierRepository;
+    private final ChangeVersionService changeVersionService;
+    private final ScheduleIndex scheduleIndex;
+    private final RosterCache rosterCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration archiveAfter;
+
+    public TaskArchiveService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              SoldierRepository soldierRepository, ChangeVersionService changeVersionService,
+                              ScheduleIndex scheduleIndex, RosterCache rosterCache,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${troops.archive.after:30d}") Duration archiveAfter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.soldierRepository = soldierRepository;
+        this.changeVersionService = changeVersionService;
+        this.scheduleIndex = scheduleIndex;
+        this.rosterCache = rosterCache;
+        this.eventPublisher = eventPublisher;
+        this.archiveAfter = archiveAfter;
+    }
+
+    @Scheduled(cron = "${troops.archive.cron:0 30 3 * * *}")
+    public void archiveEnded() {
+        int archived = archiveEndingBefore(Instant.now().minus(archiveAfter));
+        if (archived > 0) {
+            log.info("Archived {} tasks that ended more than {} ago", archived, archiveAfter);
+        }
+    }
+
+    /**
+     * Archives every task whose series ended before the cutoff. Each chunk commits on its own, so
+     * a large first run never holds more than one chunk's locks at a time.
+     */
+    public int archiveEndingBefore(Instant cutoff) {
+        Timestamp before = Timestamp.from(cutoff);
+        int total = 0;
+        while (true) {
+            Integer archived = transactionTemplate.execute(status -> archiveChunk(before));
+            if (archived == null || archived == 0) {
+                return total;
+            }
+            total += archived;
+        }
+    }
+
+    private int archiveChunk(Timestamp before) {
+        List<Long> candidates = jdbcTemplate.queryForList(
+                "SELECT id FROM task WHERE series_end_at < ? ORDER BY id LIMIT " + CHUNK, Long.class, before);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        // Soldiers are locked before tasks, the order assignSoldiers takes them in; locking the
+        // tasks first would deadlock against an assignment waiting to insert a join row
+        List<Long> soldierIds = soldiersOn(candidates);
+        if (!soldierIds.isEmpty()) {
+            soldierRepository.lockAllById(soldierIds);
+        }
+        Object[] candidateIds = candidates.toArray();
+        Object[] args = new Object[candidateIds.length + 1];
+        System.arraycopy(candidateIds, 0, args, 0, candidateIds.length);
+        args[candidateIds.length] = before;
+        List<Long> taskIds = jdbcTemplate.queryForList("SELECT id FROM task WHERE id IN " + placeholders(candidateIds.length) +
+                " AND series_end_at < ? ORDER BY id FOR UPDATE", Long.class, args);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+
+        Object[] ids = taskIds.toArray();
+        String in = placeholders(ids.length);
+        List<Long> affectedSoldiers = soldiersOn(taskIds);
+        jdbcTemplate.update("INSERT INTO task_archive (" + COLUMNS + ", archived_at) " +
+                "SELECT " + COLUMNS + ", CURRENT_TIMESTAMP FROM task WHERE id IN " + in, ids);
+        jdbcTemplate.update("INSERT INTO task_soldier_archive (task_id, soldier_id) " +
+                "SELECT task_id, soldier_id FROM task_soldier WHERE task_id IN " + in, ids);
+        jdbcTemplate.update("INSERT INTO task_exception_archive (task_id, occurrence_start) " +
+                "SELECT task_id, occurrence_start FROM task_exception WHERE task_id IN " + in, ids);
+        jdbcTemplate.update("DELETE FROM task_soldier WHERE task_id IN " + in, ids);
+        jdbcTemplate.update("DELETE FROM task_exception WHERE task_id IN " + in, ids);
+        jdbcTemplate.update("DELETE FROM task WHERE id IN " + in, ids);
+
+        // To live clients and delta sync an archived task is simply gone from the task list
+        changeVersionService.record(affectedSoldiers, List.of(), List.of(), taskIds);
+        scheduleIndex.tasksRemoved(taskIds);
+        rosterCache.schedulesChanged(affectedSoldiers);
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.TASK, ChangeEvent.ARCHIVED, null, taskIds));
+        return taskIds.size();
+    }
+
+    /**
+     * Archived tasks overlapping the window, optionally only those a given soldier was on.
+     * Recurring series are expanded into their occurrences inside the window, like the calendar.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskView> getArchivedBetween(String from, String to, Long soldierId) {
+        Instant windowStart = DateTimes.parse(from);
+        Instant windowEnd = DateTimes.parse(to);
+        if (!windowStart.isBefore(windowEnd)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (Duration.between(windowStart, windowEnd).compareTo(TaskService.MAX_CALENDAR_WINDOW) > 0) {
+            throw new IllegalArgumentException("Archive window is limited to " + TaskService.MAX_CALENDAR_WINDOW.toDays() + " days");
+        }
+
+        String window = "FROM task_archive ta WHERE ta.start_at < ? AND ta.series_end_at > ?" +
+                (soldierId == null ? "" : " AND ta.id IN (SELECT task_id FROM task_soldier_archive WHERE soldier_id = ?)");
+        Object[] args = soldierId == null
+                ? new Object[]{Timestamp.from(windowEnd), Timestamp.from(windowStart)}
+                : new Object[]{Timestamp.from(windowEnd), Timestamp.from(windowStart), soldierId};
+
+        // Soldiers deleted since the task was archived come back as bare ids
+        Map<Long, List<SoldierSummary>> assigned = new HashMap<>();
+        jdbcTemplate.query("SELECT tsa.task_id, tsa.soldier_id, s.first_name, s.last_name, s.rank, s.squad, s.team, s.role " +
+                "FROM task_soldier_archive tsa LEFT JOIN soldier s ON s.id = tsa.soldier_id " +
+                "WHERE tsa.task_id IN (SELECT ta.id " + window + ")", rs -> {
+            assigned.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(new SoldierSummary(rs.getLong(2),
+                    rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8)));
+        }, args);
+        Map<Long, List<Instant>> exceptions = new HashMap<>();
+        jdbcTemplate.query("SELECT tea.task_id, tea.occurrence_start FROM task_exception_archive tea " +
+                "WHERE tea.task_id IN (SELECT ta.id " + window + ")", rs -> {
+            exceptions.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getTimestamp(2).toInstant());
+        }, args);
+
+        long fromMillis = windowStart.toEpochMilli();
+        long toMillis = windowEnd.toEpochMilli();
+        List<TaskView> views = new ArrayList<>();
+        jdbcTemplate.query("SELECT ta.id, ta.name, ta.description, ta.reason, ta.location, ta.created, ta.start_at, " +
+                "ta.end_at, ta.recurrence, ta.recurrence_until " + window, rs -> {
+            long id = rs.getLong(1);
+            Instant start = rs.getTimestamp(7).toInstant();
+            Instant end = rs.getTimestamp(8).toInstant();
+            String recurrence = rs.getString(9);
+            Timestamp until = rs.getTimestamp(10);
+            List<SoldierSummary> soldiers = assigned.getOrDefault(id, List.of()).stream()
+                    .sorted(Comparator.comparing(SoldierSummary::id))
+                    .toList();
+            TaskView view = new TaskView(id, rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                    rs.getString(6), start, end, recurrence, until == null ? null : until.toInstant(), soldiers);
+            if (recurrence == null) {
+                views.add(view);
+            } else {
+                Recurrence.of(start.toEpochMilli(), end.toEpochMilli(), recurrence, view.recurrenceUntil(),
+                                exceptions.getOrDefault(id, List.of()))
+                        .forEachOccurrence(fromMillis, toMillis, occurrence -> views.add(view.occurrenceAt(Instant.ofEpochMilli(occurrence))));
+            }
+        }, args);
+        views.sort(Comparator.comparing(TaskView::start).thenComparing(TaskView::id));
+        return views;
+    }
+
+    private List<Long> soldiersOn(List<Long> taskIds) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT soldier_id FROM task_soldier WHERE task_id IN " +
+                placeholders(taskIds.size()) + " ORDER BY soldier_id", Long.class, taskIds.toArray());
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(",", Collections.nCopies(count, "?")) + ")";
+    }
+}
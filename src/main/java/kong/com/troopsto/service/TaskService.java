@@ -1,96 +1,506 @@
 package kong.com.troopsto.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.AuditEntry;
+import kong.com.troopsto.dto.ChangeEvent;
+import kong.com.troopsto.dto.DeltaSync;
+import kong.com.troopsto.dto.PageSlice;
+import kong.com.troopsto.dto.SoldierConflict;
+import kong.com.troopsto.dto.TaskException;
+import kong.com.troopsto.dto.TaskView;
 import kong.com.troopsto.model.Soldier;
 import kong.com.troopsto.model.Task;
 import kong.com.troopsto.repository.SoldierRepository;
 import kong.com.troopsto.repository.TaskRepository;
+import kong.com.troopsto.util.DateTimes;
+import kong.com.troopsto.util.Recurrence;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class TaskService {
+    static final Duration MAX_CALENDAR_WINDOW = Duration.ofDays(366);
+    // Upper bound for the SQL span of a series that never ends
+    private static final Instant OPEN_ENDED = Instant.parse("9999-12-31T00:00:00Z");
+    static final int MAX_BATCH = 5000;
+    private static final int PURGE_CHUNK = 1000;
+    // Stands in for the task to leave out of an overlap query when the task is not saved yet; ids start at 1
+    private static final Long NO_TASK = 0L;
+
     public final TaskRepository taskRepository;
     public final SoldierRepository soldierRepository;
+    private final ScheduleIndex scheduleIndex;
+    private final RosterCache rosterCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeVersionService changeVersionService;
+    private final SchedulingMetrics schedulingMetrics;
+    private final AuditJournal auditJournal;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public TaskService(TaskRepository taskRepository, SoldierRepository soldierRepository) {
+    public TaskService(TaskRepository taskRepository, SoldierRepository soldierRepository,
+                       ScheduleIndex scheduleIndex, RosterCache rosterCache, JdbcTemplate jdbcTemplate,
+                       ApplicationEventPublisher eventPublisher, ChangeVersionService changeVersionService,
+                       SchedulingMetrics schedulingMetrics, AuditJournal auditJournal) {
         this.taskRepository = taskRepository;
         this.soldierRepository = soldierRepository;
+        this.scheduleIndex = scheduleIndex;
+        this.rosterCache = rosterCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.changeVersionService = changeVersionService;
+        this.schedulingMetrics = schedulingMetrics;
+        this.auditJournal = auditJournal;
     }
 
+    @Transactional
     public Task saveNewTask(Task task){
-        return taskRepository.save(task);
+        // Rejects a missing time or a malformed recurrence rule before anything is written
+        requireTimes(task);
+        task.occurrences();
+
+        // A re-saved task may drop soldiers, so their cached schedules change too
+        String action = task.getId() == null ? ChangeEvent.CREATED : ChangeEvent.UPDATED;
+        Set<Long> previouslyAssigned = task.getId() == null ? Set.of() : scheduleIndex.soldiersAssignedTo(task.getId());
+        Set<Long> affectedSoldiers = new HashSet<>(previouslyAssigned);
+
+        // Locked before the check, as in assignSoldiers, so two saves cannot book a soldier twice
+        Set<Long> requested = new HashSet<>();
+        task.getAssigned().forEach(soldier -> requested.add(soldier.getId()));
+        if (!requested.isEmpty()) {
+            List<Soldier> conflicted = soldierRepository.lockAllById(requested).stream()
+                    .filter(soldier -> hasConflict(soldier, task))
+                    .toList();
+            if (!conflicted.isEmpty()) {
+                throw new AssignmentConflictException(toConflicts(conflicted,
+                        overlapping(conflicted.stream().map(Soldier::getId).toList(), task)));
+            }
+        }
+
+        Task savedTask = taskRepository.save(task);
+        Set<Long> assigned = new HashSet<>();
+        savedTask.getAssigned().forEach(soldier -> assigned.add(soldier.getId()));
+        affectedSoldiers.addAll(assigned);
+        changeVersionService.record(affectedSoldiers, List.of(savedTask.getId()), List.of(), List.of());
+
+        List<AuditEntry> audit = new ArrayList<>();
+        for (Long soldierId : affectedSoldiers) {
+            if (!previouslyAssigned.contains(soldierId)) {
+                audit.add(AuditJournal.entry(AuditEntry.ASSIGNED, soldierId, savedTask.getId(), savedTask.getName()));
+            } else if (!assigned.contains(soldierId)) {
+                audit.add(AuditJournal.entry(AuditEntry.UNASSIGNED, soldierId, savedTask.getId(), savedTask.getName()));
+            }
+        }
+        auditJournal.publish(audit);
+
+        scheduleIndex.taskSaved(savedTask);
+        rosterCache.schedulesChanged(affectedSoldiers);
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.TASK, action, savedTask.getId(), TaskView.from(savedTask)));
+        return savedTask;
+    }
+
+    /**
+     * Creates a batch of new tasks in one transaction. Assigned soldiers are locked with a single
+     * query and checked for double booking like {@link #assignSoldiers}, against their existing
+     * tasks and against each other's tasks in the batch; the task, task_exception and task_soldier
+     * inserts go out as JDBC batches.
+     */
+    @Transactional
+    public List<TaskView> createTasks(List<Task> tasks) {
+        if (tasks.size() > MAX_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH + " tasks per batch");
+        }
+
+        Set<Long> soldierIds = new HashSet<>();
+        for (Task task : tasks) {
+            if (task.getId() != null) {
+                throw new IllegalArgumentException("Batch create only creates new tasks");
+            }
+            if (task.getName() == null || task.getName().isBlank()) {
+                throw new IllegalArgumentException("Task name is required");
+            }
+            requireTimes(task);
+            task.occurrences();
+            for (Soldier soldier : task.getAssigned()) {
+                if (soldier.getId() == null) {
+                    throw new IllegalArgumentException("Assigned soldiers must have an id");
+                }
+                soldierIds.add(soldier.getId());
+            }
+        }
+
+        // Locked as assignSoldiers locks them, so no assignment can land between the check and the insert
+        List<Soldier> locked = soldierIds.isEmpty() ? List.of() : soldierRepository.lockAllById(soldierIds);
+        Map<Long, Soldier> soldiers = locked.stream()
+                .collect(Collectors.toMap(Soldier::getId, Function.identity()));
+        if (soldiers.size() != soldierIds.size()) {
+            Set<Long> missing = new TreeSet<>(soldierIds);
+            missing.removeAll(soldiers.keySet());
+            throw new IllegalArgumentException("Soldier not found: " + missing);
+        }
+        for (Task task : tasks) {
+            Set<Soldier> assigned = new HashSet<>();
+            task.getAssigned().forEach(soldier -> assigned.add(soldiers.get(soldier.getId())));
+            task.setAssigned(assigned);
+        }
+        requireNoOverlaps(tasks, locked);
+
+        List<Task> saved = taskRepository.saveAll(tasks);
+        // The change stamps are plain SQL, so the rows have to exist first
+        taskRepository.flush();
+        changeVersionService.record(soldierIds, saved.stream().map(Task::getId).toList(), List.of(), List.of());
+
+        List<AuditEntry> audit = new ArrayList<>();
+        for (Task task : saved) {
+            task.getAssigned().forEach(soldier ->
+                    audit.add(AuditJournal.entry(AuditEntry.ASSIGNED, soldier.getId(), task.getId(), task.getName())));
+        }
+        auditJournal.publish(audit);
+
+        saved.forEach(scheduleIndex::taskSaved);
+        rosterCache.schedulesChanged(soldierIds);
+        List<TaskView> views = saved.stream().map(TaskView::from).toList();
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.TASK, ChangeEvent.IMPORTED, null, views));
+        return views;
+    }
+
+    /**
+     * Deletes every task whose last occurrence ended before the cutoff, archived ones included.
+     * Only ids are read; the deletes run as set-based statements over chunks of ids, so no task
+     * entity is loaded. Open-ended recurring series are never purged.
+     */
+    @Transactional
+    public int purgeTasksEndingBefore(String cutoff) {
+        Timestamp before = Timestamp.from(DateTimes.parse(cutoff));
+        int archived = purgeArchivedEndingBefore(before);
+        // Soldiers are locked before tasks, the order assignSoldiers takes them in; an assignment
+        // holding a soldier while its join row waits on the task would otherwise deadlock with us
+        List<Long> soldierIds = jdbcTemplate.queryForList("SELECT DISTINCT soldier_id FROM task_soldier " +
+                "WHERE task_id IN (SELECT id FROM task WHERE series_end_at < ?) ORDER BY soldier_id", Long.class, before);
+        for (int from = 0; from < soldierIds.size(); from += PURGE_CHUNK) {
+            soldierRepository.lockAllById(soldierIds.subList(from, Math.min(soldierIds.size(), from + PURGE_CHUNK)));
+        }
+        // Locking the rows keeps a concurrent assign from adding join rows behind the purge
+        List<Long> taskIds = jdbcTemplate.queryForList(
+                "SELECT id FROM task WHERE series_end_at < ? ORDER BY id FOR UPDATE", Long.class, before);
+        if (taskIds.isEmpty()) {
+            return archived;
+        }
+
+        Set<Long> affectedSoldiers = new HashSet<>();
+        List<AuditEntry> audit = new ArrayList<>();
+        for (int from = 0; from < taskIds.size(); from += PURGE_CHUNK) {
+            Object[] chunk = taskIds.subList(from, Math.min(taskIds.size(), from + PURGE_CHUNK)).toArray();
+            String ids = "(" + String.join(",", Collections.nCopies(chunk.length, "?")) + ")";
+            jdbcTemplate.query("SELECT ts.soldier_id, ts.task_id, t.name FROM task_soldier ts " +
+                    "JOIN task t ON t.id = ts.task_id WHERE ts.task_id IN " + ids, rs -> {
+                long soldierId = rs.getLong(1);
+                affectedSoldiers.add(soldierId);
+                audit.add(AuditJournal.entry(AuditEntry.TASK_PURGED, soldierId, rs.getLong(2), rs.getString(3)));
+            }, chunk);
+            jdbcTemplate.update("DELETE FROM task_soldier WHERE task_id IN " + ids, chunk);
+            jdbcTemplate.update("DELETE FROM task_exception WHERE task_id IN " + ids, chunk);
+            jdbcTemplate.update("DELETE FROM task WHERE id IN " + ids, chunk);
+        }
+
+        changeVersionService.record(affectedSoldiers, List.of(), List.of(), taskIds);
+        auditJournal.publish(audit);
+        scheduleIndex.tasksRemoved(taskIds);
+        rosterCache.schedulesChanged(affectedSoldiers);
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.TASK, ChangeEvent.PURGED, null, taskIds));
+        return archived + taskIds.size();
+    }
+
+    // Archived tasks are invisible to clients and the schedule index, so there is nothing to notify
+    private int purgeArchivedEndingBefore(Timestamp before) {
+        String ended = "(SELECT id FROM task_archive WHERE series_end_at < ?)";
+        jdbcTemplate.update("DELETE FROM task_soldier_archive WHERE task_id IN " + ended, before);
+        jdbcTemplate.update("DELETE FROM task_exception_archive WHERE task_id IN " + ended, before);
+        return jdbcTemplate.update("DELETE FROM task_archive WHERE series_end_at < ?", before);
     }
 
     public List<Task> findAll() {
         return taskRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<TaskView> getTaskViews() {
+        return taskRepository.findAllWithAssigned().stream()
+                .map(TaskView::from)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public PageSlice<TaskView> getTaskPage(Long after, int limit) {
+        List<Long> ids = taskRepository.findIdsAfter(after == null ? 0L : after, PageRequest.of(0, limit + 1));
+        return PageSlice.of(ids, limit, pageIds -> taskRepository.findAllWithAssignedByIdIn(pageIds).stream()
+                .map(TaskView::from)
+                .toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskView> getTasksBetween(String from, String to) {
+        Instant windowStart = DateTimes.parse(from);
+        Instant windowEnd = DateTimes.parse(to);
+        if (!windowStart.isBefore(windowEnd)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (Duration.between(windowStart, windowEnd).compareTo(MAX_CALENDAR_WINDOW) > 0) {
+            throw new IllegalArgumentException("Calendar window is limited to " + MAX_CALENDAR_WINDOW.toDays() + " days");
+        }
+
+        // Recurring tasks are expanded here, and only for the requested window
+        long fromMillis = windowStart.toEpochMilli();
+        long toMillis = windowEnd.toEpochMilli();
+        List<TaskView> views = new ArrayList<>();
+        for (Task task : taskRepository.findOverlappingWithAssigned(windowStart, windowEnd)) {
+            Recurrence occurrences = task.occurrences();
+            if (occurrences == null) {
+                // Legacy rows saved before start and end were required
+                continue;
+            }
+            TaskView view = TaskView.from(task);
+            if (task.getRecurrence() == null) {
+                if (occurrences.overlaps(fromMillis, toMillis)) {
+                    views.add(view);
+                }
+            } else {
+                occurrences.forEachOccurrence(fromMillis, toMillis, start -> views.add(view.occurrenceAt(Instant.ofEpochMilli(start))));
+            }
+        }
+        views.sort(Comparator.comparing(TaskView::start).thenComparing(TaskView::id));
+        return views;
+    }
+
+    @Transactional(readOnly = true)
+    public DeltaSync<TaskView> getTaskChangesSince(long since) {
+        long version = changeVersionService.currentFromDatabase();
+        List<TaskView> changed = taskRepository.findChangedSince(since).stream()
+                .map(TaskView::from)
+                .toList();
+        return new DeltaSync<>(version, changed, changeVersionService.deletedSince(ChangeEvent.TASK, since));
+    }
+
     public Optional<Task> findById(Long id) {
         return taskRepository.findById(id);
     }
 
+    @Transactional
     public void deleteTask(Long id) {
-        taskRepository.deleteById(id);
+        Optional<Task> task = taskRepository.findById(id);
+        if (task.isEmpty()) {
+            return;
+        }
+        Set<Long> affectedSoldiers = scheduleIndex.soldiersAssignedTo(id);
+        taskRepository.delete(task.get());
+        changeVersionService.record(affectedSoldiers, List.of(), List.of(), List.of(id));
+        auditJournal.publish(affectedSoldiers.stream()
+                .map(soldierId -> AuditJournal.entry(AuditEntry.TASK_DELETED, soldierId, id, task.get().getName()))
+                .toList());
+        scheduleIndex.taskRemoved(id);
+        rosterCache.schedulesChanged(affectedSoldiers);
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.TASK, ChangeEvent.DELETED, id, null));
     }
 
+    /**
+     * Assigns a set of soldiers to a task in one transaction: one query loads and locks the
+     * soldiers, one query finds every overlapping assignment, and the new task_soldier rows go in
+     * as a single JDBC batch. If any soldier conflicts nothing is written and all conflicts are
+     * reported.
+     * <p>
+     * The soldier row locks make check-then-insert atomic per soldier: a concurrent assignment of
+     * any of the same soldiers waits here until this one commits, then sees its rows in the
+     * overlap query. Assignments of other soldiers proceed in parallel.
+     */
+    @Transactional
     public Task assignSoldiers(Long taskId, Set<Long> soldierIds) {
-        Task task = taskRepository.findById(taskId)
+        List<Soldier> soldiers = soldierIds.isEmpty() ? List.of() : soldierRepository.lockAllById(soldierIds);
+        if (soldiers.size() != soldierIds.size()) {
+            Set<Long> missing = new TreeSet<>(soldierIds);
+            soldiers.forEach(soldier -> missing.remove(soldier.getId()));
+            throw new IllegalArgumentException("Soldier not found: " + missing);
+        }
+
+        // Loaded after the locks, so assignments committed while waiting are already visible
+        Task task = taskRepository.findWithAssignedById(taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found"));
 
-        for (Long soldierId : soldierIds) {
-            Soldier soldier = soldierRepository.findById(soldierId)
-                    .orElseThrow(() -> new IllegalArgumentException("Soldier not found"));
+        if (!soldierIds.isEmpty() && task.getStart() != null && task.getEnd() != null) {
+            List<AssignmentRow> candidates = taskRepository.findOverlappingAssignments(
+                    soldierIds, task.getStart(), seriesEndOf(task), task.getId());
+            schedulingMetrics.scanned(SchedulingMetrics.ASSIGN, soldierIds.size(), candidates.size());
+            List<AssignmentRow> overlapping = occurringWith(candidates, task.occurrences());
+            if (!overlapping.isEmpty()) {
+                throw new AssignmentConflictException(toConflicts(soldiers, overlapping));
+            }
+        }
 
-            if (hasConflict(soldier, task.getStart(), task.getEnd())) {
-                throw new IllegalArgumentException("Soldier " + soldier.getFirstName() + " has a conflicting task");
+        Set<Long> alreadyAssigned = new HashSet<>();
+        task.getAssigned().forEach(soldier -> alreadyAssigned.add(soldier.getId()));
+        List<Object[]> rows = new ArrayList<>();
+        for (Long soldierId : new TreeSet<>(soldierIds)) {
+            if (!alreadyAssigned.contains(soldierId)) {
+                rows.add(new Object[]{soldierId, taskId});
             }
+        }
 
-            task.getAssigned().add(soldier);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO task_soldier (soldier_id, task_id) VALUES (?, ?)", rows);
+            entityManager.refresh(task);
+        }
 
-            soldier.getTasks().add(task);
-            soldierRepository.save(soldier);
+        changeVersionService.record(soldierIds, List.of(taskId), List.of(), List.of());
+        auditJournal.publish(rows.stream()
+                .map(row -> AuditJournal.entry(AuditEntry.ASSIGNED, (Long) row[0], taskId, task.getName()))
+                .toList());
+        scheduleIndex.taskSaved(task);
+        rosterCache.schedulesChanged(soldierIds);
+        eventPublisher.publishEvent(new ChangeEvent(ChangeEvent.TASK, ChangeEvent.ASSIGNED, task.getId(), TaskView.from(task)));
+        return task;
+    }
+
+    /**
+     * Skips one occurrence of a recurring task. The time must be the start of an occurrence.
+     */
+    @Transactional
+    public Task skipOccurrence(Long taskId, String occurrenceStart) {
+        Task task = taskRepository.findWithAssignedById(taskId)
+                .orElseThrow(() -> new IllegalArgumentException("Task not found"));
+        if (task.getRecurrence() == null) {
+            throw new IllegalArgumentException("Task does not recur");
         }
+        Instant occurrence = DateTimes.parse(occurrenceStart);
+        long time = occurrence.toEpochMilli();
+        if (task.occurrences().firstOverlapping(time, time + 1) != time) {
+            throw new IllegalArgumentException("No occurrence starts at " + occurrenceStart);
+        }
+        task.getExceptions().add(occurrence);
+        return saveNewTask(task);
+    }
 
-        return taskRepository.save(task);
+    /**
+     * Whether one of the task's occurrences overlaps a task the soldier already has, checked
+     * against the database. A task being re-saved is left out of its own check.
+     */
+    public boolean hasConflict(Soldier soldier, Task task) {
+        return schedulingMetrics.time(SchedulingMetrics.CONFLICT_CHECK,
+                () -> !overlapping(List.of(soldier.getId()), task).isEmpty());
     }
 
-    public boolean hasConflict(Soldier soldier, String newTaskStart, String newTaskEnd) {
-        for (Task t : soldier.getTasks()) {
-            if (timesOverlap(newTaskStart, newTaskEnd, t.getStart(), t.getEnd())) {
-                return true;
+    private List<AssignmentRow> overlapping(Collection<Long> soldierIds, Task task) {
+        List<AssignmentRow> candidates = taskRepository.findOverlappingAssignments(soldierIds, task.getStart(),
+                seriesEndOf(task), task.getId() == null ? NO_TASK : task.getId());
+        return occurringWith(candidates, task.occurrences());
+    }
+
+    // The overlap queries bound recurring series by their whole span; keep rows that truly clash
+    private List<AssignmentRow> occurringWith(List<AssignmentRow> candidates, Recurrence occurrences) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Set<Long> recurringTasks = new HashSet<>();
+        candidates.stream().filter(row -> row.recurrence() != null).forEach(row -> recurringTasks.add(row.taskId()));
+        Map<Long, List<Instant>> exceptions = recurringTasks.isEmpty() ? Map.of()
+                : taskRepository.findExceptions(recurringTasks).stream()
+                .collect(Collectors.groupingBy(TaskException::taskId,
+                        Collectors.mapping(TaskException::occurrenceStart, Collectors.toList())));
+
+        Map<Long, Boolean> clashes = new HashMap<>();
+        List<AssignmentRow> overlapping = new ArrayList<>();
+        for (AssignmentRow row : candidates) {
+            boolean clash = clashes.computeIfAbsent(row.taskId(),
+                    id -> row.occurrences(exceptions.get(id)).overlaps(occurrences));
+            if (clash) {
+                overlapping.add(row);
             }
         }
-        return false;
+        return overlapping;
     }
 
-    private LocalDateTime parseDateTime(String dateTimeStr) {
-        try {
-            // Try parsing as ISO 8601 with Z (UTC)
-            if (dateTimeStr.endsWith("Z")) {
-                Instant instant = Instant.parse(dateTimeStr);
-                return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-            }
-            // Try parsing as LocalDateTime
-            return LocalDateTime.parse(dateTimeStr);
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid date format: " + dateTimeStr);
+    // A task missing either end can never be placed on a schedule or checked for conflicts
+    private static void requireTimes(Task task) {
+        if (task.getStart() == null || task.getEnd() == null) {
+            throw new IllegalArgumentException("Task start and end are required");
         }
     }
 
-    private boolean timesOverlap(String start1, String end1, String start2, String end2) {
-        LocalDateTime s1 = parseDateTime(start1);
-        LocalDateTime e1 = parseDateTime(end1);
-        LocalDateTime s2 = parseDateTime(start2);
-        LocalDateTime e2 = parseDateTime(end2);
+    private void requireNoOverlaps(List<Task> tasks, List<Soldier> soldiers) {
+        List<AssignmentRow> overlapping = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            Set<Long> soldierIds = new HashSet<>();
+            task.getAssigned().forEach(soldier -> soldierIds.add(soldier.getId()));
+            if (soldierIds.isEmpty()) {
+                continue;
+            }
+            List<AssignmentRow> candidates = taskRepository.findOverlappingAssignments(
+                    soldierIds, task.getStart(), seriesEndOf(task), NO_TASK);
+            schedulingMetrics.scanned(SchedulingMetrics.ASSIGN, soldierIds.size(), candidates.size());
+            overlapping.addAll(occurringWith(candidates, task.occurrences()));
 
-        return s1.isBefore(e2) && s2.isBefore(e1);
+            // Earlier tasks of the same batch are not in the database yet
+            for (Task other : tasks.subList(0, i)) {
+                if (!other.occurrences().overlaps(task.occurrences())) {
+                    continue;
+                }
+                for (Soldier soldier : other.getAssigned()) {
+                    if (soldierIds.contains(soldier.getId())) {
+                        overlapping.add(new AssignmentRow(soldier.getId(), null, other.getName(), other.getStart(), other.getEnd()));
+                    }
+                }
+            }
+        }
+        if (!overlapping.isEmpty()) {
+            throw new AssignmentConflictException(toConflicts(soldiers, overlapping));
+        }
     }
 
+    private static Instant seriesEndOf(Task task) {
+        if (task.getRecurrence() == null) {
+            return task.getEnd();
+        }
+        long end = task.occurrences().seriesEnd();
+        return end == Long.MAX_VALUE ? OPEN_ENDED : Instant.ofEpochMilli(end);
+    }
+
+    private List<SoldierConflict> toConflicts(List<Soldier> soldiers, List<AssignmentRow> overlapping) {
+        Map<Long, List<String>> tasksBySoldier = new LinkedHashMap<>();
+        for (AssignmentRow row : overlapping) {
+            tasksBySoldier.computeIfAbsent(row.soldierId(), id -> new ArrayList<>()).add(row.taskName());
+        }
+
+        List<SoldierConflict> conflicts = new ArrayList<>();
+        for (Soldier soldier : soldiers) {
+            List<String> taskNames = tasksBySoldier.get(soldier.getId());
+            if (taskNames != null) {
+                conflicts.add(new SoldierConflict(soldier.getId(), soldier.getFirstName(), taskNames));
+            }
+        }
+        return conflicts;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package kong.com.troopsto.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import kong.com.troopsto.dto.AuthenticatedUser;
+import kong.com.troopsto.model.Profile;
+import kong.com.troopsto.model.Role;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Issues and verifies signed, expiring session tokens. Everything needed to authenticate a
+ * request is in the token itself, so any instance holding the same secret can validate it
+ * without a session store.
+ */
+@Service
+public class TokenService {
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String USERNAME_CLAIM = "username";
+    private static final String ROLE_CLAIM = "role";
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Duration ttl;
+
+    public TokenService(@Value("${troops.security.jwt.secret:}") String secret,
+                        @Value("${troops.security.jwt.ttl:12h}") Duration ttl) {
+        this.key = Keys.hmacShaKeyFor(secretBytes(secret));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.ttl = ttl;
+    }
+
+    public String issue(Profile profile) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .setSubject(String.valueOf(profile.getId()))
+                .claim(USERNAME_CLAIM, profile.getUsername())
+                .claim(ROLE_CLAIM, profile.getRole() != null ? profile.getRole().name() : Role.USER.name())
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plus(ttl)))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public Optional<AuthenticatedUser> verify(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            return Optional.of(new AuthenticatedUser(
+                    Long.valueOf(claims.getSubject()),
+                    claims.get(USERNAME_CLAIM, String.class),
+                    Role.valueOf(claims.get(ROLE_CLAIM, String.class))));
+        } catch (JwtException | IllegalArgumentException | NullPointerException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            // No shared secret configured: tokens only survive for the life of this JVM
+            log.warn("JWT_SECRET not set, using a random signing key (local development only)");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("JWT_SECRET must be at least 32 bytes");
+        }
+        return bytes;
+    }
+}
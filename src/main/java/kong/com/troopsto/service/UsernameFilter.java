@@ -0,0 +1,120 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.repository.ProfileRepository;
+import kong.com.troopsto.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory membership filter over taken usernames, so the signup page's availability check for
+ * a free name is answered without a query. A "maybe taken" answer from the filter is confirmed
+ * against the database, which also catches the filter's false positives.
+ * <p>
+ * Registrations on this instance are added immediately. Names taken on other instances show up
+ * when the filter is rebuilt, within the same window as the roster cache; until then such a name
+ * reads as free here, and the unique constraint still rejects it at signup.
+ */
+@Component
+public class UsernameFilter {
+    private static final Logger log = LoggerFactory.getLogger(UsernameFilter.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final ProfileRepository profileRepository;
+    private final long rebuildMillis;
+
+    private volatile Snapshot snapshot;
+    // Names registered while a rebuild is reading the table, which its query may have missed
+    private volatile Set<String> addedDuringRebuild;
+
+    public UsernameFilter(ProfileRepository profileRepository,
+                          @Value("${troops.cache.expire-after-write:5m}") Duration rebuildAfter) {
+        this.profileRepository = profileRepository;
+        this.rebuildMillis = rebuildAfter.toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        rebuild();
+    }
+
+    public boolean exists(String username) {
+        if (!current().filter.mightContain(username)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(profileRepository.existsByUsername(username));
+    }
+
+    public void added(String username) {
+        // Recorded before touching the filter, so a rebuild that swaps in meanwhile still sees it
+        Set<String> pending = addedDuringRebuild;
+        if (pending != null) {
+            pending.add(username);
+        }
+        Snapshot current = current();
+        current.filter.add(username);
+        // Past its sized capacity the false-positive rate climbs, so start over with room to grow
+        if (current.size.incrementAndGet() > current.capacity) {
+            rebuild();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.builtAt > rebuildMillis) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || System.currentTimeMillis() - current.builtAt > rebuildMillis) {
+                    current = rebuild();
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized Snapshot rebuild() {
+        Set<String> pending = ConcurrentHashMap.newKeySet();
+        addedDuringRebuild = pending;
+        try {
+            List<String> usernames = profileRepository.findAllUsernames();
+            int capacity = Math.max(MIN_CAPACITY, usernames.size() * 2);
+            BloomFilter filter = BloomFilter.create(capacity, FALSE_POSITIVE_RATE);
+            usernames.forEach(filter::add);
+            pending.forEach(filter::add);
+
+            Snapshot rebuilt = new Snapshot(filter, capacity, usernames.size() + pending.size(), System.currentTimeMillis());
+            snapshot = rebuilt;
+            // Names recorded after the copy above went to the old filter; the set still holds them
+            pending.forEach(filter::add);
+            log.debug("Username filter rebuilt with {} names, capacity {}", usernames.size(), capacity);
+            return rebuilt;
+        } finally {
+            addedDuringRebuild = null;
+        }
+    }
+
+    private static final class Snapshot {
+        final BloomFilter filter;
+        final int capacity;
+        final AtomicInteger size;
+        final long builtAt;
+
+        Snapshot(BloomFilter filter, int capacity, int size, long builtAt) {
+            this.filter = filter;
+            this.capacity = capacity;
+            this.size = new AtomicInteger(size);
+            this.builtAt = builtAt;
+        }
+    }
+}
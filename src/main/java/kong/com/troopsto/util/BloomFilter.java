@@ -0,0 +1,78 @@
+package kong.com.troopsto.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. {@link #mightContain} never returns false for a value that
+ * was added, and returns true for a value that was not with roughly the probability the filter
+ * was sized for. Adds and lookups are safe to run concurrently.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    private BloomFilter(long bits, int hashes) {
+        this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+        this.bits = words.length() * 64L;
+        this.hashes = hashes;
+    }
+
+    /** Sized for {@code expectedValues} at the given false-positive rate. */
+    public static BloomFilter create(int expectedValues, double falsePositiveRate) {
+        int n = Math.max(1, expectedValues);
+        double ln2 = Math.log(2);
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * ln2));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int combined) {
+        return (combined & 0x7fffffffL) % bits;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so both halves are usable
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,33 @@
+package kong.com.troopsto.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+public final class DateTimes {
+
+    private DateTimes() {
+    }
+
+    public static Instant parse(String dateTimeStr) {
+        try {
+            // Try parsing as ISO 8601 with Z (UTC)
+            if (dateTimeStr.endsWith("Z")) {
+                return Instant.parse(dateTimeStr);
+            }
+            // Otherwise treat it as a local date-time in the server's zone
+            return LocalDateTime.parse(dateTimeStr).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format: " + dateTimeStr);
+        }
+    }
+
+    public static long toEpochMillis(String dateTimeStr) {
+        return parse(dateTimeStr).toEpochMilli();
+    }
+
+    public static boolean overlaps(long start1, long end1, long start2, long end2) {
+        return start1 < end2 && start2 < end1;
+    }
+}
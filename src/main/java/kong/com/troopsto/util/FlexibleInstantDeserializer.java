@@ -0,0 +1,32 @@
+package kong.com.troopsto.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Accepts the same inputs the API always has for task times: ISO-8601 instants ("...Z") from the
+ * frontend and local date-times, which are read in the server's zone.
+ */
+public class FlexibleInstantDeserializer extends StdScalarDeserializer<Instant> {
+
+    public FlexibleInstantDeserializer() {
+        super(Instant.class);
+    }
+
+    @Override
+    public Instant deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        String text = parser.getValueAsString();
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            return DateTimes.parse(text.trim());
+        } catch (IllegalArgumentException e) {
+            return (Instant) context.handleWeirdStringValue(Instant.class, text, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package kong.com.troopsto.util;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+/**
+ * Occurrence arithmetic for a task that may repeat at a fixed interval.
+ * <p>
+ * Occurrence {@code k} covers {@code [start + k * period, start + k * period + duration)} for every
+ * {@code k} up to the last one starting at or before {@code until}, minus the skipped ones. Overlap
+ * questions are answered from the rule itself, so a year of daily formations is never expanded
+ * just to test one window. A one-off task is the degenerate case with a single occurrence.
+ * <p>
+ * Rules are a small subset of RFC 5545: {@code FREQ=HOURLY|DAILY|WEEKLY} with an optional
+ * {@code INTERVAL=n}, or just the frequency name. The interval is a fixed number of milliseconds,
+ * so a daily task keeps its UTC time of day across daylight saving changes.
+ */
+public final class Recurrence {
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    private static final long WEEK = 7 * DAY;
+
+    private final long start;
+    private final long duration;
+    private final long period;
+    private final long lastIndex;
+    private final long[] skipped;
+
+    private Recurrence(long start, long duration, long period, long lastIndex, long[] skipped) {
+        this.start = start;
+        this.duration = duration;
+        this.period = period;
+        this.lastIndex = lastIndex;
+        this.skipped = skipped;
+    }
+
+    public static Recurrence once(long start, long end) {
+        return new Recurrence(start, end - start, 0, 0, new long[0]);
+    }
+
+    /**
+     * @param rule       the repeat rule, or {@code null} for a one-off task
+     * @param until      last moment an occurrence may start, or {@code null} to repeat indefinitely
+     * @param exceptions starts of occurrences that are skipped
+     */
+    public static Recurrence of(long start, long end, String rule, Instant until, Collection<Instant> exceptions) {
+        if (rule == null || rule.isBlank()) {
+            return once(start, end);
+        }
+        long period = periodOf(rule);
+        long duration = end - start;
+        if (duration <= 0 || duration > period) {
+            throw new IllegalArgumentException("A recurring task must end after it starts and before it repeats");
+        }
+
+        long lastIndex = Long.MAX_VALUE;
+        if (until != null) {
+            if (until.toEpochMilli() < start) {
+                throw new IllegalArgumentException("Recurrence end is before the first occurrence");
+            }
+            lastIndex = (until.toEpochMilli() - start) / period;
+        }
+
+        long[] skipped = exceptions == null ? new long[0] : exceptions.stream()
+                .mapToLong(Instant::toEpochMilli)
+                .filter(time -> time >= start && (time - start) % period == 0)
+                .map(time -> (time - start) / period)
+                .sorted()
+                .distinct()
+                .toArray();
+        return new Recurrence(start, duration, period, lastIndex, skipped);
+    }
+
+    public static long periodOf(String rule) {
+        String frequency = null;
+        long interval = 1;
+        for (String part : rule.trim().toUpperCase(Locale.ROOT).split(";")) {
+            String[] pair = part.split("=", 2);
+            if (pair.length == 1) {
+                frequency = pair[0].trim();
+            } else if (pair[0].trim().equals("FREQ")) {
+                frequency = pair[1].trim();
+            } else if (pair[0].trim().equals("INTERVAL")) {
+                try {
+                    interval = Long.parseLong(pair[1].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid recurrence interval: " + rule);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported recurrence rule: " + rule);
+            }
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid recurrence interval: " + rule);
+        }
+        long unit = switch (frequency == null ? "" : frequency) {
+            case "HOURLY" -> HOUR;
+            case "DAILY" -> DAY;
+            case "WEEKLY" -> WEEK;
+            default -> throw new IllegalArgumentException("Unsupported recurrence rule: " + rule);
+        };
+        return unit * interval;
+    }
+
+    public boolean isRecurring() {
+        return period > 0;
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long duration() {
+        return duration;
+    }
+
+    /** End of the last occurrence, or {@link Long#MAX_VALUE} for a series that never ends. */
+    public long seriesEnd() {
+        if (lastIndex == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return start + lastIndex * period + duration;
+    }
+
+    /** Whether any occurrence that is not skipped overlaps {@code [from, to)}. */
+    public boolean overlaps(long from, long to) {
+        long first = firstIndex(from);
+        long last = lastIndex(to);
+        if (first > last) {
+            return false;
+        }
+        return skippedBetween(first, last) < last - first + 1;
+    }
+
+    /** Start of the earliest occurrence overlapping {@code [from, to)}, or {@link Long#MIN_VALUE}. */
+    public long firstOverlapping(long from, long to) {
+        long last = lastIndex(to);
+        for (long k = firstIndex(from); k <= last; k++) {
+            if (!isSkipped(k)) {
+                return start + k * period;
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /** Feeds the start of each occurrence overlapping {@code [from, to)} to {@code action}, in order. */
+    public void forEachOccurrence(long from, long to, LongConsumer action) {
+        long last = lastIndex(to);
+        for (long k = firstIndex(from); k <= last; k++) {
+            if (!isSkipped(k)) {
+                action.accept(start + k * period);
+            }
+        }
+    }
+
+    /** Whether any occurrence of this task overlaps any occurrence of {@code other}. */
+    public boolean overlaps(Recurrence other) {
+        if (!isRecurring()) {
+            return other.overlaps(start, start + duration);
+        }
+        if (!other.isRecurring()) {
+            return overlaps(other.start, other.start + other.duration);
+        }
+        if (lastIndex == Long.MAX_VALUE && other.lastIndex == Long.MAX_VALUE) {
+            // Two endless series: the offsets between their starts run through every value congruent
+            // to (start - other.start) modulo gcd(period, other.period). Skips are finite, so if any
+            // such offset overlaps, infinitely many non-skipped pairs do too.
+            long gcd = gcd(period, other.period);
+            long offset = Math.floorMod(start - other.start, gcd);
+            return offset < other.duration || gcd - offset < duration;
+        }
+
+        // At least one side ends: walk the sparser series across the span where both are active
+        Recurrence walked = other.lastIndex == Long.MAX_VALUE || (lastIndex != Long.MAX_VALUE && period >= other.period)
+                ? this : other;
+        Recurrence checked = walked == this ? other : this;
+        long last = walked.lastIndex(checked.seriesEnd());
+        for (long k = walked.firstIndex(checked.start); k <= last; k++) {
+            long occurrence = walked.start + k * walked.period;
+            if (!walked.isSkipped(k) && checked.overlaps(occurrence, occurrence + walked.duration)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // First occurrence index whose end is after from
+    private long firstIndex(long from) {
+        if (from < start + duration) {
+            return 0;
+        }
+        if (period == 0) {
+            return 1;
+        }
+        return Math.floorDiv(from - duration - start, period) + 1;
+    }
+
+    // Last occurrence index whose start is before to, capped by the series end
+    private long lastIndex(long to) {
+        if (to <= start) {
+            return -1;
+        }
+        if (period == 0) {
+            return 0;
+        }
+        long span = to - start;
+        if (span < 0) {
+            span = Long.MAX_VALUE;
+        }
+        return Math.min(lastIndex, (span - 1) / period);
+    }
+
+    private boolean isSkipped(long index) {
+        return skipped.length > 0 && Arrays.binarySearch(skipped, index) >= 0;
+    }
+
+    private long skippedBetween(long first, long last) {
+        if (skipped.length == 0) {
+            return 0;
+        }
+        return insertionPoint(last + 1) - insertionPoint(first);
+    }
+
+    private int insertionPoint(long index) {
+        int position = Arrays.binarySearch(skipped, index);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long next = a % b;
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,27 @@
+package kong.com.troopsto.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class Transactions {
+
+    private Transactions() {
+    }
+
+    /**
+     * Runs the action once the surrounding transaction commits, or immediately when there is none.
+     * Used to keep in-memory views from observing writes that might still roll back.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+CREATE TABLE assignment_audit
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    occurred_at TIMESTAMP WITH TIME ZONE                NOT NULL,
+    action      VARCHAR(32)                             NOT NULL,
+    soldier_id  BIGINT,
+    task_id     BIGINT,
+    task_name   VARCHAR(255),
+    actor       VARCHAR(255),
+    CONSTRAINT pk_assignment_audit PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_assignment_audit_soldier ON assignment_audit (soldier_id, occurred_at);
@@ -0,0 +1,39 @@
+-- Cold storage for tasks whose last occurrence ended long ago; filled by TaskArchiveService.
+-- No foreign keys to soldier, so history survives a soldier being deleted.
+CREATE TABLE task_archive
+(
+    id               BIGINT                   NOT NULL,
+    name             VARCHAR(255)             NOT NULL,
+    description      VARCHAR(255),
+    reason           VARCHAR(255),
+    location         VARCHAR(255),
+    created          VARCHAR(255),
+    start_at         TIMESTAMP WITH TIME ZONE,
+    end_at           TIMESTAMP WITH TIME ZONE,
+    recurrence       VARCHAR(64),
+    recurrence_until TIMESTAMP WITH TIME ZONE,
+    series_end_at    TIMESTAMP WITH TIME ZONE,
+    archived_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_task_archive PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_task_archive_start_series_end ON task_archive (start_at, series_end_at);
+
+CREATE TABLE task_soldier_archive
+(
+    task_id    BIGINT NOT NULL,
+    soldier_id BIGINT NOT NULL,
+    CONSTRAINT pk_task_soldier_archive PRIMARY KEY (task_id, soldier_id)
+);
+
+CREATE INDEX idx_task_soldier_archive_soldier ON task_soldier_archive (soldier_id);
+
+CREATE TABLE task_exception_archive
+(
+    task_id          BIGINT                   NOT NULL,
+    occurrence_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_task_exception_archive PRIMARY KEY (task_id, occurrence_start)
+);
+
+-- The archival job and purge both select on series end alone
+CREATE INDEX idx_task_series_end ON task (series_end_at);
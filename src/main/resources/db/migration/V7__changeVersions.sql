@@ -0,0 +1,29 @@
+CREATE TABLE change_version
+(
+    id      INT    NOT NULL,
+    version BIGINT NOT NULL,
+    CONSTRAINT pk_change_version PRIMARY KEY (id)
+);
+
+INSERT INTO change_version (id, version)
+VALUES (1, 0);
+
+ALTER TABLE soldier
+    ADD change_version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE task
+    ADD change_version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX idx_soldier_change_version ON soldier (change_version);
+
+CREATE INDEX idx_task_change_version ON task (change_version);
+
+CREATE TABLE change_tombstone
+(
+    entity_type    VARCHAR(16) NOT NULL,
+    entity_id      BIGINT      NOT NULL,
+    change_version BIGINT      NOT NULL,
+    CONSTRAINT pk_change_tombstone PRIMARY KEY (entity_type, entity_id)
+);
+
+CREATE INDEX idx_change_tombstone_version ON change_tombstone (entity_type, change_version);
@@ -0,0 +1,23 @@
+ALTER TABLE task
+    ADD recurrence VARCHAR(64);
+
+ALTER TABLE task
+    ADD recurrence_until TIMESTAMP WITH TIME ZONE;
+
+ALTER TABLE task
+    ADD series_end_at TIMESTAMP WITH TIME ZONE;
+
+UPDATE task
+SET series_end_at = end_at;
+
+CREATE INDEX idx_task_start_series_end ON task (start_at, series_end_at);
+
+CREATE TABLE task_exception
+(
+    task_id          BIGINT                   NOT NULL,
+    occurrence_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_task_exception PRIMARY KEY (task_id, occurrence_start)
+);
+
+ALTER TABLE task_exception
+    ADD CONSTRAINT fk_task_exception_on_task FOREIGN KEY (task_id) REFERENCES task (id);
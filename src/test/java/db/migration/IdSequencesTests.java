@@ -0,0 +1,87 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdSequencesTests {
+    private Connection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:id_sequences;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE soldier (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name VARCHAR(20))");
+        }
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void firstPooledBlockStartsPastExistingIds() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO soldier (id, name) VALUES (1, 'a'), (7, 'b'), (120, 'c')");
+        }
+
+        IdSequences.replaceIdentity(context(), "soldier", "soldier_seq");
+
+        // The pooled optimizer treats each value as the top of a block of ALLOCATION_SIZE ids
+        long first = nextValue();
+        assertThat(first - IdSequences.ALLOCATION_SIZE + 1).isGreaterThan(120);
+        assertThat(nextValue()).isEqualTo(first + IdSequences.ALLOCATION_SIZE);
+    }
+
+    @Test
+    void emptyTableStartsAtTheFirstBlock() throws SQLException {
+        IdSequences.replaceIdentity(context(), "soldier", "soldier_seq");
+
+        assertThat(nextValue()).isEqualTo(IdSequences.ALLOCATION_SIZE);
+    }
+
+    @Test
+    void plainInsertsStillGetAnId() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO soldier (id, name) VALUES (120, 'c')");
+        }
+        IdSequences.replaceIdentity(context(), "soldier", "soldier_seq");
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO soldier (name) VALUES ('d')");
+            try (ResultSet rs = statement.executeQuery("SELECT id FROM soldier WHERE name = 'd'")) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getLong(1)).isGreaterThan(120);
+            }
+        }
+    }
+
+    private Context context() {
+        Context context = mock(Context.class);
+        when(context.getConnection()).thenReturn(connection);
+        return context;
+    }
+
+    private long nextValue() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT NEXT VALUE FOR soldier_seq")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
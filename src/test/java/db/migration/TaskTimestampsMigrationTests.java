@@ -0,0 +1,86 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TaskTimestampsMigrationTests {
+    // Pinned, so the expected instants do not depend on the zone of the machine running the test
+    private static final ZoneId APP_ZONE = ZoneId.of("America/New_York");
+
+    private Connection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:task_timestamps;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE task (id BIGINT PRIMARY KEY, start_time VARCHAR(255), end_time VARCHAR(255))");
+            statement.execute("CREATE TABLE task_soldier (soldier_id BIGINT, task_id BIGINT)");
+        }
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void localTimesAreReadInTheApplicationZone() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO task VALUES (1, '2026-01-15T09:00', '2026-01-15T10:30:00'), " +
+                    "(2, '2026-07-01T08:00:00Z', '2026-07-01T09:00:00Z'), (3, '', NULL)");
+        }
+
+        V6__taskTimestamps.migrate(context(), APP_ZONE);
+
+        // New York is five hours behind UTC in January
+        assertThat(times(1)).containsExactly(Instant.parse("2026-01-15T14:00:00Z"), Instant.parse("2026-01-15T15:30:00Z"));
+        assertThat(times(2)).containsExactly(Instant.parse("2026-07-01T08:00:00Z"), Instant.parse("2026-07-01T09:00:00Z"));
+        assertThat(times(3)).containsExactly(null, null);
+    }
+
+    @Test
+    void unreadableTimeNamesTheTask() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO task VALUES (7, 'next tuesday', NULL)");
+        }
+
+        assertThatThrownBy(() -> V6__taskTimestamps.migrate(context(), APP_ZONE))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("Task 7");
+    }
+
+    private Context context() {
+        Context context = mock(Context.class);
+        when(context.getConnection()).thenReturn(connection);
+        return context;
+    }
+
+    private Instant[] times(long taskId) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT start_at, end_at FROM task WHERE id = " + taskId)) {
+            assertThat(rs.next()).isTrue();
+            OffsetDateTime start = rs.getObject(1, OffsetDateTime.class);
+            OffsetDateTime end = rs.getObject(2, OffsetDateTime.class);
+            return new Instant[]{start == null ? null : start.toInstant(), end == null ? null : end.toInstant()};
+        }
+    }
+}
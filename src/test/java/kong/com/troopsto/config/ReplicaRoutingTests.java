@@ -0,0 +1,58 @@
+package kong.com.troopsto.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A second in-memory H2 stands in for the replica; only which database answers matters here
+@SpringBootTest(properties = "troops.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1")
+class ReplicaRoutingTests {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void endRequest() {
+        ReadYourWrites.end();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(databaseIn(true)).isEqualToIgnoringCase("replica");
+    }
+
+    @Test
+    void writeTransactionsUseThePrimary() {
+        assertThat(databaseIn(false)).isEqualToIgnoringCase("testdb");
+    }
+
+    @Test
+    void readsAfterAWriteInTheSameRequestUseThePrimary() {
+        ReadYourWrites.begin(false, () -> {});
+        databaseIn(false);
+
+        assertThat(databaseIn(true)).isEqualToIgnoringCase("testdb");
+    }
+
+    @Test
+    void pinnedRequestsReadFromThePrimary() {
+        ReadYourWrites.begin(true, () -> {});
+
+        assertThat(databaseIn(true)).isEqualToIgnoringCase("testdb");
+    }
+
+    private String databaseIn(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+    }
+}
@@ -0,0 +1,294 @@
+package kong.com.troopsto.controller;
+
+import kong.com.troopsto.service.RosterCache;
+import kong.com.troopsto.service.ScheduleIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AssignConcurrencyTests {
+    private static final int SOLDIERS = 20;
+    private static final int TASKS = 10;
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 400;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private RosterCache rosterCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private List<Long> soldierIds;
+    private List<Long> taskIds;
+    private Instant start;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM task_soldier");
+        jdbcTemplate.update("DELETE FROM task_exception");
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM soldier");
+
+        // Every task overlaps every other one, so a soldier may hold at most one of them
+        start = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < SOLDIERS; i++) {
+            jdbcTemplate.update("INSERT INTO soldier (first_name, last_name) VALUES (?, ?)", "First" + i, "Last" + i);
+        }
+        for (int i = 0; i < TASKS; i++) {
+            Instant taskStart = start.plus(10L * i, ChronoUnit.MINUTES);
+            Instant taskEnd = taskStart.plus(2, ChronoUnit.HOURS);
+            jdbcTemplate.update("INSERT INTO task (name, start_at, end_at, series_end_at) VALUES (?, ?, ?, ?)",
+                    "Task" + i, Timestamp.from(taskStart), Timestamp.from(taskEnd), Timestamp.from(taskEnd));
+        }
+        soldierIds = jdbcTemplate.queryForList("SELECT id FROM soldier ORDER BY id", Long.class);
+        taskIds = jdbcTemplate.queryForList("SELECT id FROM task ORDER BY id", Long.class);
+
+        scheduleIndex.rebuild();
+        rosterCache.invalidateAll();
+    }
+
+    @Test
+    void concurrentAssignmentsNeverDoubleBookASoldier() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+
+        List<Callable<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long taskId = taskIds.get(random.nextInt(TASKS));
+                long first = soldierIds.get(random.nextInt(SOLDIERS));
+                long second = soldierIds.get(random.nextInt(SOLDIERS));
+                HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/api/task/" + taskId + "/assign"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("[" + first + "," + second + "]"))
+                        .build();
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                statuses.computeIfAbsent(status, code -> new AtomicInteger()).incrementAndGet();
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        try {
+            for (Future<Void> result : executor.invokeAll(requests)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Every request either went through or was turned away as a conflict; nothing deadlocked or failed
+        assertThat(statuses.keySet()).containsAnyOf(200).isSubsetOf(200, 409);
+
+        List<Long> doubleBooked = jdbcTemplate.queryForList(
+                "SELECT soldier_id FROM task_soldier GROUP BY soldier_id HAVING COUNT(*) > 1", Long.class);
+        assertThat(doubleBooked).isEmpty();
+
+        // Contention on a handful of soldiers must not serialize the whole run into a crawl
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(60));
+    }
+
+    @Test
+    void assignmentsOnDisjointSoldiersKeepTheirThroughput() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        // One task per soldier, so no two threads touch the same soldier or task row
+        List<Long> ownTasks = new ArrayList<>(taskIds);
+        Instant start = Instant.now().plus(30, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+        for (int i = TASKS; i < THREADS; i++) {
+            jdbcTemplate.update("INSERT INTO task (name, start_at, end_at, series_end_at) VALUES (?, ?, ?, ?)",
+                    "Own" + i, Timestamp.from(start), Timestamp.from(start.plus(1, ChronoUnit.HOURS)),
+                    Timestamp.from(start.plus(1, ChronoUnit.HOURS)));
+            ownTasks.add(jdbcTemplate.queryForObject("SELECT MAX(id) FROM task", Long.class));
+        }
+
+        // Each request re-assigns a soldier to the one task it already holds: no conflicts, same work every time
+        List<Callable<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            long soldierId = soldierIds.get(i % THREADS);
+            long taskId = ownTasks.get(i % THREADS);
+            requests.add(() -> {
+                assertThat(assign(client, taskId, soldierId)).isEqualTo(200);
+                return null;
+            });
+        }
+        // Warm up the server so the baseline is not paying for JIT and connection setup
+        for (Callable<Void> request : requests.subList(0, THREADS)) {
+            request.call();
+        }
+
+        Duration serial = run(requests, 1);
+        Duration parallel = run(requests, THREADS);
+
+        // A lock shared by every assignment would put the 16-thread run at or above the serial one
+        // plus its contention; row locks per soldier must keep it well within half again of it
+        assertThat(parallel).isLessThan(serial.multipliedBy(3).dividedBy(2));
+    }
+
+    @Test
+    void assignmentWaitsOnlyForItsOwnSoldiers() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        long locked = soldierIds.get(0);
+        long other = soldierIds.get(1);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Another transaction holds the first soldier's row lock while the second soldier is assigned
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT id FROM soldier WHERE id = ? FOR UPDATE", Long.class, locked);
+            held.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(assign(client, taskIds.get(0), other)).isEqualTo(200);
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+        assertThat(jdbcTemplate.queryForList("SELECT soldier_id FROM task_soldier", Long.class)).containsExactly(other);
+    }
+
+    @Test
+    void batchCreateDoesNotDoubleBook() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        long first = soldierIds.get(0);
+        long second = soldierIds.get(1);
+        assertThat(assign(client, taskIds.get(0), first)).isEqualTo(200);
+
+        // Against a task the soldier already holds
+        assertThat(createBatch(client, batchTask("Clash", start.plus(1, ChronoUnit.HOURS), first))).isEqualTo(409);
+        // Against another task of the same batch
+        Instant later = start.plus(7, ChronoUnit.DAYS);
+        assertThat(createBatch(client, batchTask("A", later, second), batchTask("B", later.plus(1, ChronoUnit.HOURS), second)))
+                .isEqualTo(409);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM task", Integer.class)).isEqualTo(TASKS);
+
+        assertThat(createBatch(client, batchTask("A", later, second), batchTask("B", later.plus(2, ChronoUnit.HOURS), second)))
+                .isEqualTo(200);
+        assertThat(jdbcTemplate.queryForList("SELECT task_id FROM task_soldier WHERE soldier_id = ?", Long.class, second))
+                .hasSize(2);
+    }
+
+    @Test
+    void newTaskAndConflictCheckSeeCommittedAssignments() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        long soldier = soldierIds.get(0);
+        assertThat(assign(client, taskIds.get(0), soldier)).isEqualTo(200);
+
+        assertThat(post(client, "/api/task/new_task", batchTask("Clash", start.plus(1, ChronoUnit.HOURS), soldier)))
+                .isEqualTo(409);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM task", Integer.class)).isEqualTo(TASKS);
+
+        Instant from = start.plus(1, ChronoUnit.HOURS);
+        Instant to = start.plus(3, ChronoUnit.HOURS);
+        assertThat(checkConflict(client, soldier, from, to, null)).contains("\"hasConflict\":true");
+        // The task being edited does not conflict with itself
+        assertThat(checkConflict(client, soldier, from, to, taskIds.get(0))).contains("\"hasConflict\":false");
+    }
+
+    private String checkConflict(HttpClient client, long soldierId, Instant from, Instant to, Long excludeTaskId) throws Exception {
+        String query = "?taskStart=" + from + "&taskEnd=" + to + (excludeTaskId == null ? "" : "&excludeTaskId=" + excludeTaskId);
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/soldier/" + soldierId + "/check-conflict" + query))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private int createBatch(HttpClient client, String... tasks) throws Exception {
+        return post(client, "/api/task/batch", "[" + String.join(",", tasks) + "]");
+    }
+
+    private int post(HttpClient client, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // Two hours long, like the seeded tasks
+    private static String batchTask(String name, Instant taskStart, long soldierId) {
+        return "{\"name\":\"" + name + "\",\"start\":\"" + taskStart + "\",\"end\":\""
+                + taskStart.plus(2, ChronoUnit.HOURS) + "\",\"assigned\":[{\"id\":" + soldierId + "}]}";
+    }
+
+    private int assign(HttpClient client, long taskId, long... soldiers) throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < soldiers.length; i++) {
+            body.append(i == 0 ? "" : ",").append(soldiers[i]);
+        }
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/task/" + taskId + "/assign"))
+                .header("Content-Type", "application/json")
+                // A global lock would hold this behind the locked soldier until the holder gives up
+                .timeout(Duration.ofSeconds(5))
+                .POST(HttpRequest.BodyPublishers.ofString(body.append("]").toString()))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static Duration run(List<Callable<Void>> requests, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        try {
+            for (Future<Void> result : executor.invokeAll(requests)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return elapsed;
+    }
+}
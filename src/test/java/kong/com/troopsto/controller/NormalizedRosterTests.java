@@ -0,0 +1,156 @@
+package kong.com.troopsto.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import kong.com.troopsto.dto.NormalizedRoster;
+import kong.com.troopsto.service.RosterCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class NormalizedRosterTests {
+    // A platoon on a month of platoon-wide training: everyone is on every task
+    private static final int SOLDIERS = 40;
+    private static final int TASKS = 30;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RosterCache rosterCache;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM task_soldier");
+        jdbcTemplate.update("DELETE FROM task_exception");
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM soldier");
+
+        // Every soldier on every task: the nested lists repeat each one under all the others
+        Instant start = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < SOLDIERS; i++) {
+            jdbcTemplate.update("INSERT INTO soldier (first_name, last_name, rank, squad, team, role) VALUES (?, ?, ?, ?, ?, ?)",
+                    "First" + i, "Last" + i, "SPC", "Squad" + i % 3, "Team" + i % 2, "Rifleman");
+        }
+        for (int i = 0; i < TASKS; i++) {
+            Instant taskStart = start.plus(i, ChronoUnit.DAYS);
+            jdbcTemplate.update("INSERT INTO task (name, description, location, start_at, end_at, series_end_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)", "Task" + i, "Range day " + i, "Range " + i,
+                    Timestamp.from(taskStart), Timestamp.from(taskStart.plus(8, ChronoUnit.HOURS)),
+                    Timestamp.from(taskStart.plus(8, ChronoUnit.HOURS)));
+        }
+        jdbcTemplate.update("INSERT INTO task_soldier (soldier_id, task_id) SELECT s.id, t.id FROM soldier s CROSS JOIN task t");
+        rosterCache.invalidateAll();
+    }
+
+    @Test
+    void normalizedJsonHasItsOwnShapeAndTag() throws Exception {
+        for (String path : new String[]{"/api/soldier/soldiers", "/api/task/tasks"}) {
+            HttpResponse<byte[]> nested = get(path, MediaType.APPLICATION_JSON_VALUE, null);
+            HttpResponse<byte[]> normalized = get(path, NormalizedRoster.JSON_VALUE, null);
+
+            assertThat(contentType(normalized).equalsTypeAndSubtype(NormalizedRoster.JSON)).as(path).isTrue();
+            JsonNode body = json.readTree(normalized.body());
+            assertThat(body.get("soldiers")).hasSize(SOLDIERS);
+            assertThat(body.get("tasks")).hasSize(TASKS);
+            assertThat(body.get("assignments")).hasSize(SOLDIERS * TASKS);
+            assertThat(json.readTree(nested.body()).isArray()).isTrue();
+
+            String nestedTag = etag(nested);
+            String normalizedTag = etag(normalized);
+            assertThat(normalizedTag).isNotEqualTo(nestedTag).endsWith("-" + NormalizedRoster.ETAG_VARIANT + "\"");
+            assertThat(get(path, NormalizedRoster.JSON_VALUE, normalizedTag).statusCode()).isEqualTo(304);
+            // The nested tag must not validate a cached normalized body, nor the other way round
+            assertThat(get(path, NormalizedRoster.JSON_VALUE, nestedTag).statusCode()).isEqualTo(200);
+            assertThat(get(path, MediaType.APPLICATION_JSON_VALUE, normalizedTag).statusCode()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void normalizedCborIsTheNormalizedShapeInCbor() throws Exception {
+        HttpResponse<byte[]> response = get("/api/task/tasks", NormalizedRoster.CBOR_VALUE, null);
+
+        assertThat(contentType(response).equalsTypeAndSubtype(NormalizedRoster.CBOR)).isTrue();
+        assertThat(etag(response)).endsWith("-" + NormalizedRoster.ETAG_VARIANT + "\"");
+        JsonNode body = cbor.readTree(response.body());
+        assertThat(body.get("tasks")).hasSize(TASKS);
+        assertThat(body.get("assignments")).hasSize(SOLDIERS * TASKS);
+    }
+
+    @Test
+    void plainCborIsTheNestedListInCbor() throws Exception {
+        HttpResponse<byte[]> response = get("/api/soldier/soldiers", MediaType.APPLICATION_CBOR_VALUE, null);
+
+        assertThat(contentType(response).equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)).isTrue();
+        JsonNode body = cbor.readTree(response.body());
+        assertThat(body.isArray()).isTrue();
+        assertThat(body).hasSize(SOLDIERS);
+        assertThat(body.get(0).get("tasks")).hasSize(TASKS);
+    }
+
+    /**
+     * Each assignment costs a repeated task (about 250 B) in the nested soldier list, or a repeated
+     * soldier (about 110 B) in the nested task list, against a pair of ids in the normalized shape.
+     * The soldier list therefore shrinks by an order of magnitude. The task list's smaller records
+     * cap its gain below that at any realistic headcount.
+     */
+    @Test
+    void normalizedShapesAreSmallerThanTheNestedList() throws Exception {
+        Map<String, Integer> minimumCborRatio = Map.of("/api/soldier/soldiers", 10, "/api/task/tasks", 5);
+        for (Map.Entry<String, Integer> entry : minimumCborRatio.entrySet()) {
+            String path = entry.getKey();
+            int nested = get(path, MediaType.APPLICATION_JSON_VALUE, null).body().length;
+            int normalizedJson = get(path, NormalizedRoster.JSON_VALUE, null).body().length;
+            int normalizedCbor = get(path, NormalizedRoster.CBOR_VALUE, null).body().length;
+
+            String sizes = path + ": nested " + nested + " B, normalized JSON " + normalizedJson
+                    + " B, normalized CBOR " + normalizedCbor + " B";
+            assertThat(nested).as(sizes).isGreaterThan(normalizedJson * 4);
+            assertThat(nested).as(sizes).isGreaterThan(normalizedCbor * entry.getValue());
+            assertThat(normalizedCbor).as(sizes).isLessThan(normalizedJson);
+        }
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT, accept)
+                .GET();
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static MediaType contentType(HttpResponse<?> response) {
+        return MediaType.parseMediaType(response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow());
+    }
+
+    private static String etag(HttpResponse<?> response) {
+        return response.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+    }
+}
@@ -0,0 +1,153 @@
+package kong.com.troopsto.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kong.com.troopsto.dto.AuditEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditJournalTests {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Sizes of the batches handed to JDBC, in order
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    private AuditJournal journal;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        releaseFirstBatch.countDown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    void rolledBackTransactionPublishesNothing() throws InterruptedException {
+        journal = start(100, 10, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        journal.publish(entries(3));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        journal.shutdown();
+        assertThat(batches).isEmpty();
+        assertThat(meterRegistry.get("audit.journal.dropped").counter().count()).isZero();
+    }
+
+    @Test
+    void committedTransactionPublishesOnlyAfterCommit() throws InterruptedException {
+        journal = start(100, 10, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        journal.publish(entries(3));
+        assertThat(meterRegistry.get("audit.journal.backlog").gauge().value()).isZero();
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+
+        journal.shutdown();
+        assertThat(batches).containsExactly(3);
+    }
+
+    @Test
+    void backlogIsDrainedInBatches() throws InterruptedException {
+        journal = start(100, 3, true);
+
+        // The writer holds the first entry while the next seven pile up behind it
+        journal.publish(entries(1));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        journal.publish(entries(7));
+        releaseFirstBatch.countDown();
+
+        journal.shutdown();
+        assertThat(batches).containsExactly(1, 3, 3, 1);
+        assertThat(meterRegistry.get("audit.journal.written").counter().count()).isEqualTo(8);
+    }
+
+    @Test
+    void fullBufferDropsInsteadOfBlocking() throws InterruptedException {
+        journal = start(2, 10, true);
+
+        journal.publish(entries(1));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // The writer is stuck, so only two of these fit; publish must still return straight away
+        long started = System.nanoTime();
+        journal.publish(entries(5));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1000);
+        assertThat(meterRegistry.get("audit.journal.dropped").counter().count()).isEqualTo(3);
+
+        releaseFirstBatch.countDown();
+        journal.shutdown();
+        assertThat(meterRegistry.get("audit.journal.written").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shutdownFlushesWhatIsStillBuffered() throws InterruptedException {
+        journal = start(100, 10, true);
+
+        journal.publish(entries(1));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        journal.publish(entries(4));
+
+        // Let the writer go only once shutdown has stopped it from taking more, so the
+        // remaining four can only reach the database through the flush
+        Thread stopping = new Thread(() -> {
+            try {
+                journal.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopping.start();
+        while (stopping.getState() != Thread.State.TIMED_WAITING && stopping.isAlive()) {
+            Thread.onSpinWait();
+        }
+        releaseFirstBatch.countDown();
+        stopping.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(batches).containsExactly(1, 4);
+        assertThat(meterRegistry.get("audit.journal.written").counter().count()).isEqualTo(5);
+    }
+
+    private AuditJournal start(int capacity, int batchSize, boolean holdFirstBatch) {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (batches.isEmpty() && holdFirstBatch) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(10, TimeUnit.SECONDS);
+            }
+            batches.add(rows.size());
+            return new int[rows.size()];
+        });
+        return new AuditJournal(jdbcTemplate, meterRegistry, capacity, batchSize);
+    }
+
+    private static List<AuditEntry> entries(int count) {
+        List<AuditEntry> entries = new ArrayList<>(count);
+        IntStream.range(0, count).forEach(i -> entries.add(AuditJournal.entry(AuditEntry.ASSIGNED, (long) i, 1L, "Guard")));
+        return entries;
+    }
+}
@@ -0,0 +1,127 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.ManningHeatmap;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import kong.com.troopsto.util.DateTimes;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ManningHeatmapServiceTests {
+    private static final String ALIGNED = "2026-03-02T00:00:00Z";
+    private static final String UNALIGNED = "2026-03-02T09:15:00Z";
+
+    @Test
+    void countsMatchANaiveCountOnAWordBoundary() {
+        assertThat(slotOffset(ALIGNED)).isZero();
+        assertCountsMatchNaive(ALIGNED, 2);
+    }
+
+    @Test
+    void countsMatchANaiveCountOffAWordBoundary() {
+        assertThat(slotOffset(UNALIGNED)).isNotZero();
+        assertCountsMatchNaive(UNALIGNED, 3);
+    }
+
+    @Test
+    void busySlotsLineUpWithTheWindowStart() {
+        // One soldier on a 10:00-11:00 task, the window starting 45 minutes earlier: slots 3 to 6 are busy
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        when(taskRepository.findAllAssignments()).thenReturn(List.of(new AssignmentRow(1L, 1L, "Guard",
+                Instant.parse("2026-03-02T10:00:00Z"), Instant.parse("2026-03-02T11:00:00Z"))));
+        ScheduleIndex scheduleIndex = new ScheduleIndex(taskRepository, mock(SoldierRepository.class),
+                mock(ChangeVersionService.class), Duration.ofDays(1));
+        scheduleIndex.rebuild();
+        RosterCache rosterCache = mock(RosterCache.class);
+        when(rosterCache.roster()).thenReturn(List.of(soldier(1L, "Alpha"), soldier(2L, "Alpha")));
+
+        ManningHeatmap heatmap = new ManningHeatmapService(scheduleIndex, rosterCache).heatmap(UNALIGNED, 1, "squad");
+
+        int[] free = heatmap.groups().get(0).free();
+        assertThat(heatmap.from()).isEqualTo(Instant.parse(UNALIGNED));
+        assertThat(free).hasSize(96);
+        assertThat(free[2]).isEqualTo(2);
+        assertThat(new int[]{free[3], free[4], free[5], free[6]}).containsOnly(1);
+        assertThat(free[7]).isEqualTo(2);
+    }
+
+    /**
+     * Groups of 1, 2, 7, 8 and 9 soldiers cover every point where the counter gains a bit plane,
+     * and the carry rippling through all of them when a count reaches a power of two.
+     */
+    private static void assertCountsMatchNaive(String from, int days) {
+        int[] sizes = {1, 2, 7, 8, 9};
+        List<SoldierSummary> roster = new ArrayList<>();
+        long id = 1;
+        for (int group = 0; group < sizes.length; group++) {
+            for (int i = 0; i < sizes[group]; i++) {
+                roster.add(soldier(id++, "Squad" + group));
+            }
+        }
+
+        // Soldiers with a multiple-of-five id have no schedule at all and count as free everywhere
+        Map<Long, long[]> busy = new HashMap<>();
+        ScheduleIndex scheduleIndex = mock(ScheduleIndex.class);
+        when(scheduleIndex.busyWords(anyLong(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            Long soldierId = invocation.getArgument(0);
+            int words = invocation.getArgument(2);
+            if (soldierId % 5 == 0) {
+                return null;
+            }
+            return busy.computeIfAbsent(soldierId, key -> {
+                Random random = new Random(key);
+                long[] bits = new long[words];
+                for (int w = 0; w < words; w++) {
+                    bits[w] = random.nextLong() & random.nextLong();
+                }
+                return bits;
+            });
+        });
+        RosterCache rosterCache = mock(RosterCache.class);
+        when(rosterCache.roster()).thenReturn(roster);
+
+        ManningHeatmap heatmap = new ManningHeatmapService(scheduleIndex, rosterCache).heatmap(from, days, "squad");
+
+        int offset = slotOffset(from);
+        assertThat(heatmap.slots()).isEqualTo(days * 96);
+        assertThat(heatmap.groups()).hasSize(sizes.length);
+        for (ManningHeatmap.Group group : heatmap.groups()) {
+            List<SoldierSummary> members = roster.stream().filter(soldier -> soldier.squad().equals(group.name())).toList();
+            assertThat(group.soldiers()).isEqualTo(members.size());
+            int[] expected = new int[heatmap.slots()];
+            for (int slot = 0; slot < expected.length; slot++) {
+                int bit = offset + slot;
+                for (SoldierSummary soldier : members) {
+                    long[] bits = busy.get(soldier.id());
+                    if (bits == null || (bits[bit >>> 6] >>> (bit & 63) & 1L) == 0) {
+                        expected[slot]++;
+                    }
+                }
+            }
+            assertThat(group.free()).as(group.name()).containsExactly(expected);
+        }
+    }
+
+    private static int slotOffset(String from) {
+        return (int) Math.floorMod(Math.floorDiv(DateTimes.toEpochMillis(from), ScheduleIndex.SLOT_MILLIS), 64L);
+    }
+
+    private static SoldierSummary soldier(Long id, String squad) {
+        return new SoldierSummary(id, "First" + id, "Last" + id, null, squad, null, null);
+    }
+}
@@ -0,0 +1,128 @@
+package kong.com.troopsto.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import kong.com.troopsto.dto.SoldierView;
+import kong.com.troopsto.dto.TaskView;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReadModelQueryCountTests {
+
+    @Autowired
+    private SoldierService soldierService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private RosterCache rosterCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM task_soldier");
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM soldier");
+
+        Instant start = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < 25; i++) {
+            jdbcTemplate.update("INSERT INTO soldier (first_name, last_name) VALUES (?, ?)", "First" + i, "Last" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            jdbcTemplate.update("INSERT INTO task (name, start_at, end_at) VALUES (?, ?, ?)", "Task" + i,
+                    Timestamp.from(start.plus(i, ChronoUnit.HOURS)),
+                    Timestamp.from(start.plus(i + 1, ChronoUnit.HOURS)));
+        }
+        jdbcTemplate.update("INSERT INTO task_soldier (soldier_id, task_id) SELECT s.id, t.id FROM soldier s CROSS JOIN task t");
+
+        rosterCache.invalidateAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void soldierListLoadsInOneStatement() {
+        List<SoldierView> soldiers = soldierService.getSoldierViews().value();
+
+        assertThat(soldiers).hasSize(25);
+        assertThat(soldiers).allSatisfy(soldier -> assertThat(soldier.tasks()).hasSize(10));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatSoldierListIsServedFromCache() {
+        soldierService.getSoldierViews();
+        statistics.clear();
+
+        assertThat(soldierService.getSoldierViews().value()).hasSize(25);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void scheduleChangeReloadsOnlyTheNamedSoldier() {
+        List<SoldierView> before = soldierService.getSoldierViews().value();
+        Long changed = before.get(0).id();
+        Long untouched = before.get(1).id();
+        jdbcTemplate.update("DELETE FROM task_soldier WHERE soldier_id IN (?, ?)", changed, untouched);
+        rosterCache.schedulesChanged(List.of(changed));
+        statistics.clear();
+
+        List<SoldierView> after = soldierService.getSoldierViews().value();
+
+        assertThat(after).hasSize(25);
+        assertThat(after.get(0).tasks()).isEmpty();
+        // Not named by the change, so still served from its cached entry
+        assertThat(after.get(1).tasks()).hasSize(10);
+        // Changed ids, all ids, and the one soldier's row
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void soldiersStampedByAnotherInstanceAreReloaded() {
+        Long changed = soldierService.getSoldierViews().value().get(2).id();
+        // What a write on another instance leaves behind, without running this instance's hooks
+        jdbcTemplate.update("DELETE FROM task_soldier WHERE soldier_id = ?", changed);
+        jdbcTemplate.update("UPDATE change_version SET version = version + 1 WHERE id = 1");
+        jdbcTemplate.update("UPDATE soldier SET change_version = (SELECT version FROM change_version WHERE id = 1) WHERE id = ?",
+                changed);
+        // Drops only the list entry, as its write TTL running out would
+        rosterCache.schedulesChanged(List.of());
+
+        List<SoldierView> after = soldierService.getSoldierViews().value();
+
+        assertThat(after).filteredOn(soldier -> soldier.id().equals(changed))
+                .singleElement()
+                .satisfies(soldier -> assertThat(soldier.tasks()).isEmpty());
+        assertThat(after).filteredOn(soldier -> !soldier.id().equals(changed))
+                .allSatisfy(soldier -> assertThat(soldier.tasks()).hasSize(10));
+    }
+
+    @Test
+    void taskListLoadsInOneStatement() {
+        List<TaskView> tasks = taskService.getTaskViews();
+
+        assertThat(tasks).hasSize(10);
+        assertThat(tasks).allSatisfy(task -> assertThat(task.assigned()).hasSize(25));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
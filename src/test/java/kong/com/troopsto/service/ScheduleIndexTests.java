@@ -0,0 +1,141 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.ChangeEvent;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import kong.com.troopsto.service.ScheduleIndex.ScheduledTask;
+import kong.com.troopsto.service.ScheduleIndex.SoldierSchedule;
+import kong.com.troopsto.util.Recurrence;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScheduleIndexTests {
+
+    @Test
+    void intervalsThatOnlyTouchDoNotOverlap() {
+        SoldierSchedule schedule = new SoldierSchedule(List.of(new ScheduledTask(1, "Guard", 10, 20)));
+
+        assertThat(schedule.isFree(0, 10, null)).isTrue();
+        assertThat(schedule.isFree(20, 30, null)).isTrue();
+        assertThat(schedule.isFree(19, 21, null)).isFalse();
+        assertThat(schedule.isFree(9, 11, null)).isFalse();
+        assertThat(schedule.isFree(12, 18, null)).isFalse();
+    }
+
+    @Test
+    void excludedTaskIsIgnored() {
+        SoldierSchedule schedule = new SoldierSchedule(List.of(
+                new ScheduledTask(1, "Guard", 10, 20),
+                new ScheduledTask(2, "Patrol", 30, 40)));
+
+        assertThat(schedule.isFree(15, 18, 1L)).isTrue();
+        assertThat(schedule.isFree(15, 35, 1L)).isFalse();
+        assertThat(schedule.conflicts(0, 50, 2L)).extracting(ScheduledTask::taskId).containsExactly(1L);
+    }
+
+    @Test
+    void longEarlyTaskIsFoundBehindShorterLaterOnes() {
+        // The walk back from the window stops on the prefix max of end times, not on the last task's end
+        SoldierSchedule schedule = new SoldierSchedule(List.of(
+                new ScheduledTask(1, "Deployment", 0, 1000),
+                new ScheduledTask(2, "Briefing", 100, 110),
+                new ScheduledTask(3, "Briefing", 200, 210)));
+
+        assertThat(schedule.isFree(500, 600, null)).isFalse();
+        assertThat(schedule.conflicts(500, 600, null)).extracting(ScheduledTask::taskId).containsExactly(1L);
+        assertThat(schedule.isFree(1000, 1100, null)).isTrue();
+    }
+
+    @Test
+    void prefixMaxFollowsAddsAndRemoves() {
+        SoldierSchedule schedule = new SoldierSchedule(List.of(
+                new ScheduledTask(2, "Briefing", 100, 110),
+                new ScheduledTask(3, "Briefing", 200, 210)));
+        assertThat(schedule.isFree(500, 600, null)).isTrue();
+
+        SoldierSchedule withLong = schedule.with(new ScheduledTask(1, "Deployment", 0, 1000));
+        assertThat(withLong.isFree(500, 600, null)).isFalse();
+
+        SoldierSchedule withoutLong = withLong.without(1L);
+        assertThat(withoutLong.isFree(500, 600, null)).isTrue();
+        assertThat(withoutLong.isFree(105, 106, null)).isFalse();
+
+        assertThat(withoutLong.without(2L).without(3L)).isNull();
+    }
+
+    @Test
+    void resavedTaskReplacesItsOldEntry() {
+        SoldierSchedule schedule = new SoldierSchedule(List.of(new ScheduledTask(1, "Guard", 10, 20)))
+                .with(new ScheduledTask(1, "Guard", 50, 60));
+
+        assertThat(schedule.isFree(10, 20, null)).isTrue();
+        assertThat(schedule.isFree(50, 60, null)).isFalse();
+        assertThat(schedule.entries()).hasSize(1);
+    }
+
+    @Test
+    void recurringTasksAnswerFromTheirRule() {
+        long day = Duration.ofDays(1).toMillis();
+        Recurrence daily = Recurrence.of(0, 3_600_000, "FREQ=DAILY", null, null);
+        SoldierSchedule schedule = new SoldierSchedule(List.of(new ScheduledTask(1, "Standup", 0, 3_600_000, daily)));
+
+        assertThat(schedule.isFree(10 * day + 1_800_000, 10 * day + 7_200_000, null)).isFalse();
+        assertThat(schedule.isFree(10 * day + 3_600_000, 11 * day, null)).isTrue();
+        assertThat(schedule.conflicts(10 * day, 10 * day + 1, null))
+                .singleElement()
+                .satisfies(task -> assertThat(task.start()).isEqualTo(10 * day));
+    }
+
+    @Test
+    void removedTaskLeavesTheIndex() {
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        when(taskRepository.findAllAssignments()).thenReturn(List.of(
+                row(7L, 1L, 10, 20), row(8L, 1L, 10, 20), row(7L, 2L, 30, 40)));
+        ScheduleIndex index = new ScheduleIndex(taskRepository, mock(SoldierRepository.class),
+                mock(ChangeVersionService.class), Duration.ofDays(1));
+        index.rebuild();
+
+        assertThat(index.soldiersAssignedTo(1L)).containsExactlyInAnyOrder(7L, 8L);
+        index.taskRemoved(1L);
+
+        assertThat(index.soldiersAssignedTo(1L)).isEmpty();
+        assertThat(index.isFree(7L, 10, 20, null)).isTrue();
+        assertThat(index.isFree(8L, 10, 20, null)).isTrue();
+        assertThat(index.isFree(7L, 30, 40, null)).isFalse();
+    }
+
+    @Test
+    void writesFromAnotherInstanceAreReloadedOnceTheVersionMoves() {
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        SoldierRepository soldierRepository = mock(SoldierRepository.class);
+        ChangeVersionService changeVersionService = mock(ChangeVersionService.class);
+        when(taskRepository.findAllAssignments()).thenReturn(List.of(row(7L, 1L, 10, 20), row(8L, 2L, 10, 20)));
+        when(changeVersionService.currentFromDatabase()).thenReturn(5L);
+        ScheduleIndex index = new ScheduleIndex(taskRepository, soldierRepository, changeVersionService, Duration.ZERO);
+        index.rebuild();
+        assertThat(index.isFree(7L, 50, 60, null)).isTrue();
+
+        // Another instance assigned soldier 7 to task 3 and deleted soldier 8
+        when(changeVersionService.currentFromDatabase()).thenReturn(6L);
+        when(soldierRepository.findIdsChangedSince(5L)).thenReturn(List.of(7L));
+        when(taskRepository.findAssignmentsForSoldiers(List.of(7L))).thenReturn(List.of(row(7L, 1L, 10, 20), row(7L, 3L, 50, 60)));
+        when(changeVersionService.deletedSince(ChangeEvent.SOLDIER, 5L)).thenReturn(List.of(8L));
+
+        assertThat(index.isFree(7L, 50, 60, null)).isFalse();
+        assertThat(index.soldiersAssignedTo(3L)).containsExactly(7L);
+        assertThat(index.soldiersAssignedTo(2L)).isEmpty();
+        assertThat(index.isFree(8L, 10, 20, null)).isTrue();
+    }
+
+    private static AssignmentRow row(Long soldierId, Long taskId, long start, long end) {
+        return new AssignmentRow(soldierId, taskId, "Task" + taskId, Instant.ofEpochMilli(start), Instant.ofEpochMilli(end));
+    }
+}
@@ -0,0 +1,136 @@
+package kong.com.troopsto.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kong.com.troopsto.dto.SoldierImportReport;
+import kong.com.troopsto.dto.SoldierImportReport.RowError;
+import kong.com.troopsto.model.Soldier;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SoldierImportServiceTests {
+    private final SoldierService soldierService = mock(SoldierService.class);
+    private final SoldierImportService importService = new SoldierImportService(soldierService, new ObjectMapper());
+    private final List<List<Soldier>> chunks = new ArrayList<>();
+
+    @Test
+    void headerWithByteOrderMarkAndReorderedColumns() throws Exception {
+        savesEveryChunk();
+
+        SoldierImportReport report = importService.importCsv(new StringReader(
+                "\uFEFFrole,Last Name,first_name,squad\n" +
+                "Medic,Doe,Jane,1st\n" +
+                "\"Gunner, M240\",\"O\"\"Neil\",John,\n"));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isZero();
+        List<Soldier> saved = chunks.get(0);
+        assertThat(saved).extracting(Soldier::getFirstName).containsExactly("Jane", "John");
+        assertThat(saved).extracting(Soldier::getLastName).containsExactly("Doe", "O\"Neil");
+        assertThat(saved).extracting(Soldier::getRole).containsExactly("Medic", "Gunner, M240");
+        assertThat(saved).extracting(Soldier::getSquad).containsExactly("1st", null);
+    }
+
+    @Test
+    void headerWithoutNamesIsRejected() {
+        assertThatThrownBy(() -> importService.importCsv(new StringReader("rank,squad\nSGT,1st\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("firstName and lastName");
+    }
+
+    @Test
+    void badRowsAreReportedByLineNumber() throws Exception {
+        savesEveryChunk();
+
+        SoldierImportReport report = importService.importCsv(new StringReader(
+                "firstName,lastName\n" +
+                "Jane,Doe\n" +
+                "\n" +
+                ",Smith\n" +
+                "John,\"Unterminated\n" +
+                "Ann,Lee\n"));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(2);
+        assertThat(report.errors()).containsExactly(
+                new RowError(4, "firstName is required"),
+                new RowError(5, "Unterminated quoted field"));
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRow() throws Exception {
+        // Any insert holding the bad row fails, as the database would on a constraint it checks alone
+        int rows = SoldierImportService.CHUNK_SIZE + 10;
+        int badRow = SoldierImportService.CHUNK_SIZE + 4;
+        when(soldierService.importSoldiers(anyList())).thenAnswer(invocation -> {
+            List<Soldier> chunk = List.copyOf(invocation.<List<Soldier>>getArgument(0));
+            if (chunk.stream().anyMatch(soldier -> soldier.getFirstName().equals("First" + badRow))) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            chunks.add(chunk);
+            return chunk;
+        });
+
+        StringBuilder csv = new StringBuilder("firstName,lastName\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("First").append(i).append(",Last").append(i).append('\n');
+        }
+
+        SoldierImportReport report = importService.importCsv(new StringReader(csv.toString()));
+
+        // Header is line 1, so row i sits on line i + 2
+        assertThat(report.imported()).isEqualTo(rows - 1);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.errors()).extracting(RowError::line).containsExactly((long) badRow + 2);
+        assertThat(report.errors().get(0).message()).startsWith("Not saved: ").contains("duplicate key");
+        assertThat(chunks.get(0)).hasSize(SoldierImportService.CHUNK_SIZE);
+        assertThat(chunks.subList(1, chunks.size())).allSatisfy(chunk -> assertThat(chunk).hasSize(1));
+    }
+
+    @Test
+    void overlongValuesAreRejectedBeforeTheInsert() throws Exception {
+        savesEveryChunk();
+        String tooLong = "x".repeat(SoldierImportService.MAX_LENGTH + 1);
+
+        SoldierImportReport report = importService.importCsv(new StringReader(
+                "firstName,lastName,rank\n" +
+                "Jane,Doe," + tooLong + "\n" +
+                "John,Smith," + "x".repeat(SoldierImportService.MAX_LENGTH) + "\n"));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).containsExactly(new RowError(2, "rank is longer than 255 characters"));
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0)).extracting(Soldier::getFirstName).containsExactly("John");
+    }
+
+    @Test
+    void jsonLinesAreNumberedFromOne() throws Exception {
+        savesEveryChunk();
+
+        SoldierImportReport report = importService.importJsonLines(new StringReader(
+                "{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"squad\":\"1st\"}\n" +
+                "not json\n" +
+                "{\"firstName\":\"John\"}\n"));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).extracting(RowError::line).containsExactly(2L, 3L);
+        assertThat(chunks.get(0)).extracting(Soldier::getSquad).containsExactly("1st");
+    }
+
+    private void savesEveryChunk() {
+        when(soldierService.importSoldiers(anyList())).thenAnswer(invocation -> {
+            List<Soldier> chunk = List.copyOf(invocation.<List<Soldier>>getArgument(0));
+            chunks.add(chunk);
+            return chunk;
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.dto.AssignmentRow;
+import kong.com.troopsto.dto.SoldierSummary;
+import kong.com.troopsto.dto.StaffingDemand;
+import kong.com.troopsto.dto.StaffingPlan;
+import kong.com.troopsto.model.Task;
+import kong.com.troopsto.repository.SoldierRepository;
+import kong.com.troopsto.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StaffingSolverTests {
+
+    @Test
+    void everyOccurrenceOfARecurringTaskCountsTowardLoad() {
+        // The window runs from day 1 10:00 to day 3 13:00. Soldier 1's daily 06:00 hour falls in it
+        // twice, two hours in all; soldier 2 has one 90-minute task. Soldier 2 is the less loaded.
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        when(taskRepository.findAllAssignments()).thenReturn(List.of(
+                new AssignmentRow(1L, 10L, "Standup", Instant.parse("2026-03-01T06:00:00Z"),
+                        Instant.parse("2026-03-01T07:00:00Z"), "FREQ=DAILY", null),
+                new AssignmentRow(2L, 11L, "Briefing", Instant.parse("2026-03-02T15:00:00Z"),
+                        Instant.parse("2026-03-02T16:30:00Z"))));
+        when(taskRepository.findAllWithAssignedByIdIn(anyCollection())).thenReturn(List.of(
+                task(20L, "2026-03-01T10:00:00Z", "2026-03-01T11:00:00Z"),
+                task(21L, "2026-03-03T12:00:00Z", "2026-03-03T13:00:00Z")));
+        ScheduleIndex scheduleIndex = new ScheduleIndex(taskRepository, mock(SoldierRepository.class),
+                mock(ChangeVersionService.class), Duration.ofDays(1));
+        scheduleIndex.rebuild();
+        RosterCache rosterCache = mock(RosterCache.class);
+        when(rosterCache.roster()).thenReturn(List.of(soldier(1L), soldier(2L)));
+
+        StaffingPlan plan = new StaffingSolver(taskRepository, mock(SoldierRepository.class), mock(TaskService.class),
+                scheduleIndex, rosterCache).plan(List.of(new StaffingDemand(20L, 1, null, null, null),
+                new StaffingDemand(21L, 0, null, null, null)));
+
+        assertThat(plan.staffed().get(0)).isEqualTo(new StaffingPlan.Staffed(20L, List.of(2L)));
+        assertThat(plan.shortfalls()).isEmpty();
+    }
+
+    private static Task task(Long id, String start, String end) {
+        Task task = new Task();
+        task.setId(id);
+        task.setName("Task" + id);
+        task.setStart(Instant.parse(start));
+        task.setEnd(Instant.parse(end));
+        return task;
+    }
+
+    private static SoldierSummary soldier(Long id) {
+        return new SoldierSummary(id, "First" + id, "Last" + id, null, "1st", null, null);
+    }
+}
@@ -0,0 +1,140 @@
+package kong.com.troopsto.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TaskArchiveServiceTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TaskArchiveService taskArchiveService;
+
+    @Autowired
+    private SoldierService soldierService;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private RosterCache rosterCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Instant now;
+    private long soldierId;
+    private long endedTaskId;
+    private long upcomingTaskId;
+    private long endlessTaskId;
+
+    @BeforeEach
+    void seed() {
+        for (String table : new String[]{"task_soldier", "task_exception", "task", "soldier",
+                "task_soldier_archive", "task_exception_archive", "task_archive"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+
+        now = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        jdbcTemplate.update("INSERT INTO soldier (first_name, last_name, squad) VALUES ('Jane', 'Doe', '1st')");
+        soldierId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM soldier", Long.class);
+
+        Instant ended = now.minus(60, ChronoUnit.DAYS);
+        endedTaskId = insertTask("Ended", ended, ended.plus(2, ChronoUnit.HOURS), null, ended.plus(2, ChronoUnit.HOURS));
+        Instant upcoming = now.plus(1, ChronoUnit.DAYS);
+        upcomingTaskId = insertTask("Upcoming", upcoming, upcoming.plus(1, ChronoUnit.HOURS), null, upcoming.plus(1, ChronoUnit.HOURS));
+        // Started long before the cutoff but never ends
+        Instant endless = now.minus(90, ChronoUnit.DAYS).plus(3, ChronoUnit.HOURS);
+        endlessTaskId = insertTask("Standup", endless, endless.plus(30, ChronoUnit.MINUTES), "FREQ=DAILY", null);
+        for (long taskId : new long[]{endedTaskId, upcomingTaskId, endlessTaskId}) {
+            jdbcTemplate.update("INSERT INTO task_soldier (soldier_id, task_id) VALUES (?, ?)", soldierId, taskId);
+        }
+
+        scheduleIndex.rebuild();
+        rosterCache.invalidateAll();
+    }
+
+    @Test
+    void archivedTasksLeaveTheHotTablesAndTheIndex() {
+        assertThat(scheduleIndex.soldiersAssignedTo(endedTaskId)).containsExactly(soldierId);
+
+        int archived = taskArchiveService.archiveEndingBefore(now.minus(30, ChronoUnit.DAYS));
+
+        assertThat(archived).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM task ORDER BY id", Long.class))
+                .containsExactly(upcomingTaskId, endlessTaskId);
+        assertThat(jdbcTemplate.queryForList("SELECT task_id FROM task_soldier ORDER BY task_id", Long.class))
+                .containsExactly(upcomingTaskId, endlessTaskId);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM task_archive", Long.class)).containsExactly(endedTaskId);
+        assertThat(jdbcTemplate.queryForList("SELECT soldier_id FROM task_soldier_archive WHERE task_id = ?", Long.class, endedTaskId))
+                .containsExactly(soldierId);
+
+        Instant ended = now.minus(60, ChronoUnit.DAYS);
+        assertThat(scheduleIndex.soldiersAssignedTo(endedTaskId)).isEmpty();
+        assertThat(scheduleIndex.isFree(soldierId, ended.toEpochMilli(), ended.plus(1, ChronoUnit.HOURS).toEpochMilli(), null)).isTrue();
+        assertThat(scheduleIndex.soldiersAssignedTo(endlessTaskId)).containsExactly(soldierId);
+    }
+
+    @Test
+    void openEndedSeriesStayInPlace() {
+        taskArchiveService.archiveEndingBefore(now);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM task", Long.class)).contains(endlessTaskId);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM task_archive", Long.class)).doesNotContain(endlessTaskId);
+        assertThat(scheduleIndex.isFree(soldierId, now.plus(3, ChronoUnit.HOURS).toEpochMilli(),
+                now.plus(4, ChronoUnit.HOURS).toEpochMilli(), null)).isFalse();
+    }
+
+    @Test
+    void archiveStillShowsHistoryAfterTheSoldierIsDeleted() throws Exception {
+        taskArchiveService.archiveEndingBefore(now.minus(30, ChronoUnit.DAYS));
+        // The soldier's remaining live assignments go with them
+        jdbcTemplate.update("DELETE FROM task_soldier WHERE soldier_id = ?", soldierId);
+        scheduleIndex.rebuild();
+        soldierService.deleteSoldier(soldierId);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM soldier", Integer.class)).isZero();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/task/archive?from="
+                        + now.minus(61, ChronoUnit.DAYS) + "&to=" + now.minus(59, ChronoUnit.DAYS) + "&soldierId=" + soldierId))
+                .GET()
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode tasks = objectMapper.readTree(response.body());
+        assertThat(tasks).hasSize(1);
+        assertThat(tasks.get(0).get("id").asLong()).isEqualTo(endedTaskId);
+        JsonNode assigned = tasks.get(0).get("assigned");
+        assertThat(assigned).hasSize(1);
+        assertThat(assigned.get(0).get("id").asLong()).isEqualTo(soldierId);
+        assertThat(assigned.get(0).get("lastName").isNull()).isTrue();
+    }
+
+    private long insertTask(String name, Instant start, Instant end, String recurrence, Instant seriesEnd) {
+        jdbcTemplate.update("INSERT INTO task (name, start_at, end_at, recurrence, series_end_at) VALUES (?, ?, ?, ?, ?)",
+                name, Timestamp.from(start), Timestamp.from(end), recurrence,
+                seriesEnd == null ? null : Timestamp.from(seriesEnd));
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM task", Long.class);
+    }
+}
@@ -0,0 +1,69 @@
+package kong.com.troopsto.service;
+
+import kong.com.troopsto.repository.ProfileRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsernameFilterTests {
+    private final ProfileRepository profileRepository = mock(ProfileRepository.class);
+    private final UsernameFilter usernameFilter = new UsernameFilter(profileRepository, Duration.ofHours(1));
+
+    @Test
+    void freeNamesAreAnsweredWithoutAQuery() {
+        when(profileRepository.findAllUsernames()).thenReturn(List.of("alpha", "bravo"));
+        when(profileRepository.existsByUsername(anyString())).thenReturn(true);
+        usernameFilter.warm();
+
+        assertThat(usernameFilter.exists("alpha")).isTrue();
+        assertThat(usernameFilter.exists("charlie")).isFalse();
+        verify(profileRepository, never()).existsByUsername("charlie");
+    }
+
+    @Test
+    void registeredNamesAreTakenImmediately() {
+        when(profileRepository.findAllUsernames()).thenReturn(List.of("alpha"));
+        when(profileRepository.existsByUsername(anyString())).thenReturn(true);
+        usernameFilter.warm();
+
+        usernameFilter.added("delta");
+
+        assertThat(usernameFilter.exists("delta")).isTrue();
+    }
+
+    @Test
+    void nameRegisteredDuringARebuildSurvivesIt() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The second read stands for a query that started before "delta" was saved
+        when(profileRepository.findAllUsernames())
+                .thenReturn(List.of("alpha"))
+                .thenAnswer(invocation -> {
+                    reading.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    return List.of("alpha", "bravo");
+                });
+        when(profileRepository.existsByUsername(anyString())).thenReturn(true);
+        usernameFilter.warm();
+
+        Thread rebuilding = new Thread(usernameFilter::warm);
+        rebuilding.start();
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        usernameFilter.added("delta");
+        release.countDown();
+        rebuilding.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(usernameFilter.exists("bravo")).isTrue();
+        assertThat(usernameFilter.exists("delta")).isTrue();
+    }
+}
@@ -0,0 +1,67 @@
+package kong.com.troopsto.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+    @Test
+    void addedValuesAreAlwaysPossiblyPresent() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        List<String> names = IntStream.range(0, 1000).mapToObj(i -> "user" + i).toList();
+        names.forEach(filter::add);
+
+        assertThat(names).allMatch(filter::mightContain);
+        assertThat(filter.mightContain("")).isFalse();
+    }
+
+    @Test
+    void valuesPastCapacityAreStillPresent() {
+        BloomFilter filter = BloomFilter.create(10, 0.01);
+        List<String> names = IntStream.range(0, 500).mapToObj(i -> "\u00fcberlast-" + i).toList();
+        names.forEach(filter::add);
+
+        assertThat(names).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositivesStayNearTheSizedRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("member" + i));
+
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("stranger" + i)).count();
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        BloomFilter filter = BloomFilter.create(8_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> IntStream.range(0, 1000).forEach(i -> filter.add(thread + "-" + i))));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 1000; i++) {
+                assertThat(filter.mightContain(t + "-" + i)).isTrue();
+            }
+        }
+    }
+}
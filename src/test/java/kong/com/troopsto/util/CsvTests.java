@@ -0,0 +1,33 @@
+package kong.com.troopsto.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvTests {
+
+    @Test
+    void splitsPlainFieldsAndTrimsThem() {
+        assertThat(Csv.split("Jane, Doe ,SGT,,")).containsExactly("Jane", "Doe", "SGT", "", "");
+    }
+
+    @Test
+    void quotedFieldsKeepTheirCommas() {
+        assertThat(Csv.split("\"Doe, Jane\",1st Squad,\"A, B\"")).containsExactly("Doe, Jane", "1st Squad", "A, B");
+    }
+
+    @Test
+    void doubledQuotesBecomeOneQuote() {
+        assertThat(Csv.split("\"Jane \"\"JD\"\" Doe\",\"\"\"\",\"\"")).containsExactly("Jane \"JD\" Doe", "\"", "");
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() {
+        assertThatThrownBy(() -> Csv.split("Jane,\"Doe, SGT"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field");
+        assertThatThrownBy(() -> Csv.split("\"Jane \"\""))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,102 @@
+package kong.com.troopsto.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecurrenceTests {
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    void coprimePeriodsAlwaysMeetSomewhere() {
+        // Every 3h and every 2h from an hour apart: gcd is 1h, so the offset cycles through 0 and they clash at 3h
+        Recurrence everyThree = Recurrence.of(0, 30 * MINUTE, "FREQ=HOURLY;INTERVAL=3", null, null);
+        Recurrence everyTwo = Recurrence.of(HOUR, HOUR + 30 * MINUTE, "FREQ=HOURLY;INTERVAL=2", null, null);
+
+        assertThat(everyThree.overlaps(everyTwo)).isTrue();
+        assertThat(everyTwo.overlaps(everyThree)).isTrue();
+    }
+
+    @Test
+    void sharedFactorKeepsSeriesApart() {
+        // Every 4h from 0 and every 2h from 1h: starts only ever differ by an odd number of hours
+        Recurrence everyFour = Recurrence.of(0, 30 * MINUTE, "FREQ=HOURLY;INTERVAL=4", null, null);
+        Recurrence everyTwo = Recurrence.of(HOUR, HOUR + 30 * MINUTE, "FREQ=HOURLY;INTERVAL=2", null, null);
+        assertThat(everyFour.overlaps(everyTwo)).isFalse();
+        assertThat(everyTwo.overlaps(everyFour)).isFalse();
+
+        // Stretched to 90 minutes the 3h occurrence runs into the 4h one
+        Recurrence longer = Recurrence.of(HOUR, HOUR + 90 * MINUTE, "FREQ=HOURLY;INTERVAL=2", null, null);
+        assertThat(everyFour.overlaps(longer)).isTrue();
+    }
+
+    @Test
+    void exceptionRemovesTheOnlyClash() {
+        Instant until = Instant.ofEpochMilli(5 * DAY + 8 * HOUR);
+        Recurrence daily = Recurrence.of(8 * HOUR, 9 * HOUR, "DAILY", until, null);
+        Recurrence visit = Recurrence.once(3 * DAY + 8 * HOUR + 30 * MINUTE, 3 * DAY + 10 * HOUR);
+        assertThat(daily.overlaps(visit)).isTrue();
+        assertThat(daily.overlaps(3 * DAY + 8 * HOUR + 30 * MINUTE, 3 * DAY + 10 * HOUR)).isTrue();
+
+        Recurrence skipped = Recurrence.of(8 * HOUR, 9 * HOUR, "DAILY", until,
+                Set.of(Instant.ofEpochMilli(3 * DAY + 8 * HOUR)));
+        assertThat(skipped.overlaps(visit)).isFalse();
+        assertThat(visit.overlaps(skipped)).isFalse();
+        assertThat(skipped.overlaps(3 * DAY + 8 * HOUR + 30 * MINUTE, 3 * DAY + 10 * HOUR)).isFalse();
+        assertThat(skipped.firstOverlapping(3 * DAY, 4 * DAY + 8 * HOUR + 1)).isEqualTo(4 * DAY + 8 * HOUR);
+    }
+
+    @Test
+    void untilCutsOffLaterOccurrences() {
+        // until falls an hour before the day-2 start, so days 0 and 1 are the whole series
+        Recurrence daily = Recurrence.of(8 * HOUR, 9 * HOUR, "DAILY", Instant.ofEpochMilli(2 * DAY + 7 * HOUR), null);
+
+        assertThat(daily.seriesEnd()).isEqualTo(DAY + 9 * HOUR);
+        assertThat(daily.overlaps(DAY + 8 * HOUR, DAY + 9 * HOUR)).isTrue();
+        assertThat(daily.overlaps(2 * DAY + 8 * HOUR, 2 * DAY + 9 * HOUR)).isFalse();
+        assertThat(daily.overlaps(Recurrence.once(2 * DAY + 8 * HOUR, 2 * DAY + 9 * HOUR))).isFalse();
+
+        // An endless series that only meets it after until does not clash with it
+        Recurrence weekly = Recurrence.of(2 * DAY + 8 * HOUR, 2 * DAY + 9 * HOUR, "WEEKLY", null, null);
+        assertThat(daily.overlaps(weekly)).isFalse();
+        assertThat(weekly.overlaps(daily)).isFalse();
+    }
+
+    @Test
+    void windowStartingMidOccurrenceIncludesIt() {
+        Recurrence daily = Recurrence.of(8 * HOUR, 9 * HOUR, "DAILY", null, null);
+        long from = 4 * DAY + 8 * HOUR + 30 * MINUTE;
+
+        assertThat(daily.overlaps(from, from + 15 * MINUTE)).isTrue();
+        assertThat(daily.firstOverlapping(from, from + 15 * MINUTE)).isEqualTo(4 * DAY + 8 * HOUR);
+
+        List<Long> starts = new ArrayList<>();
+        daily.forEachOccurrence(from, 6 * DAY + 8 * HOUR + 30 * MINUTE, starts::add);
+        assertThat(starts).containsExactly(4 * DAY + 8 * HOUR, 5 * DAY + 8 * HOUR, 6 * DAY + 8 * HOUR);
+    }
+
+    @Test
+    void windowsTouchingAnOccurrenceDoNotOverlapIt() {
+        Recurrence daily = Recurrence.of(8 * HOUR, 9 * HOUR, "DAILY", null, null);
+
+        assertThat(daily.overlaps(4 * DAY + 9 * HOUR, 5 * DAY + 8 * HOUR)).isFalse();
+        assertThat(daily.overlaps(0, 8 * HOUR)).isFalse();
+        assertThat(daily.firstOverlapping(4 * DAY + 9 * HOUR, 5 * DAY + 8 * HOUR)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void rejectsTasksLongerThanTheirPeriod() {
+        assertThatThrownBy(() -> Recurrence.of(0, 2 * HOUR, "HOURLY", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Recurrence.of(0, HOUR, "FREQ=MONTHLY", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}